@@ -0,0 +1,120 @@
+package code;
+
+/**
+ * AutoPlayer runs the AI on a background thread, making moves as fast as
+ * the search allows. After every move it publishes a snapshot of the grid
+ * and its counters; the GUI samples those at its own frame rate, so
+ * intermediate positions are simply skipped when the AI is faster.
+ */
+public class AutoPlayer {
+
+    /** Board the AI plays on */
+    private final Board board;
+
+    /** Search algorithm choosing the moves */
+    private final Board.Engine engine;
+
+    /** Background thread producing moves */
+    private Thread worker;
+
+    /** Set to false to ask the worker to stop after its current move */
+    private volatile boolean running = false;
+
+    /** Latest published grid, moves played, and nodes searched */
+    private volatile int[][] latestGrid;
+    private volatile long movesPlayed = 0;
+    private volatile long nodesSearched = 0;
+
+    /** Wall-clock start and end of the run (in nanoseconds) */
+    private volatile long startTime = 0;
+    private volatile long endTime = 0;
+
+    /**
+     * Constructor: Creates an autoplayer for the given board.
+     * @param board Board to play on
+     * @param engine Search algorithm choosing the moves
+     */
+    public AutoPlayer(Board board, Board.Engine engine) {
+        this.board = board;
+        this.engine = engine;
+        this.latestGrid = board.snapshotGrid();
+    }
+
+    /**
+     * Starts the background thread. Does nothing if already running.
+     */
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        movesPlayed = 0;
+        nodesSearched = 0;
+        startTime = System.nanoTime();
+        endTime = 0;
+
+        worker = new Thread(this::playLoop, "AutoPlayer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Asks the background thread to stop once the current move is finished.
+     * Returns immediately; use isRunning() to see when it has stopped.
+     */
+    public void stop() {
+        running = false;
+    }
+
+    /**
+     * Plays moves until stopped, the game ends, or no move is possible.
+     */
+    private void playLoop() {
+        try {
+            while (running && !board.isGameOver()) {
+                long nodesBefore = board.getNodeCount();
+                String move = board.playMove(engine);
+                if (move == null) break;
+
+                nodesSearched += board.getNodeCount() - nodesBefore;
+                movesPlayed++;
+                latestGrid = board.snapshotGrid();
+            }
+        } finally {
+            endTime = System.nanoTime();
+            running = false;
+        }
+    }
+
+    /** Returns true while the background thread is producing moves */
+    public boolean isRunning() { return running; }
+
+    /** Returns the most recently published grid */
+    public int[][] getLatestGrid() { return latestGrid; }
+
+    /** Returns the number of moves played in this run */
+    public long getMovesPlayed() { return movesPlayed; }
+
+    /** Returns the number of search nodes visited in this run */
+    public long getNodesSearched() { return nodesSearched; }
+
+    /** Returns the elapsed time of this run (in nanoseconds) */
+    public long getElapsedTime() {
+        if (startTime == 0) return 0;
+        long end = endTime != 0 ? endTime : System.nanoTime();
+        return end - startTime;
+    }
+
+    /** Returns the average moves per second over this run */
+    public double getMovesPerSecond() {
+        long elapsed = getElapsedTime();
+        return elapsed == 0 ? 0 : movesPlayed * 1e9 / elapsed;
+    }
+
+    /** Returns the average nodes per second over this run */
+    public double getNodesPerSecond() {
+        long elapsed = getElapsedTime();
+        return elapsed == 0 ? 0 : nodesSearched * 1e9 / elapsed;
+    }
+
+    /** Returns the search algorithm choosing the moves */
+    public Board.Engine getEngine() { return engine; }
+}
@@ -0,0 +1,191 @@
+package code;
+
+import java.util.Random;
+
+/**
+ * BatchEvaluator scores many boards at once with the same weighted features
+ * as Board.evaluateGrid, for rollouts and batch analysis where leaf
+ * evaluation dominates.
+ *
+ * Boards are packed into a long as produced by SearchCache.pack: four bits
+ * per cell holding log2 of the tile, first cell in the highest bits.
+ *
+ * When VectorBatchEvaluator (in the separate vector source directory) has
+ * been compiled and the JVM is started with
+ * {@code --add-modules jdk.incubator.vector}, boards are evaluated by it
+ * several at a time in SIMD lanes. Otherwise, or with
+ * {@code -Dbatch.scalar=true}, the scalar loop
+ * below is used, with per-line features looked up in EvalTables. Both
+ * compute the features exactly in integers and combine
+ * them in the same order as Board.evaluateGrid, so every path gives
+ * bit-for-bit the same scores.
+ */
+public class BatchEvaluator {
+
+    /**
+     * Evaluates the boards in [from, to) and writes their scores to out at the same indices.
+     */
+    interface Kernel {
+        void evaluate(long[] boards, int from, int to, double[] weights, double[] out);
+    }
+
+    /** SIMD kernel, or null if the Vector API is not available */
+    private static final Kernel VECTOR_KERNEL = loadVectorKernel();
+
+    /**
+     * Loads VectorBatchEvaluator by name, so this class still loads when
+     * the incubator module is missing.
+     */
+    private static Kernel loadVectorKernel() {
+        if (Boolean.getBoolean("batch.scalar")) return null;
+        try {
+            return (Kernel) Class.forName("code.VectorBatchEvaluator").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    /** Returns true if evaluate() uses the SIMD kernel */
+    public static boolean isVectorized() {
+        return VECTOR_KERNEL != null;
+    }
+
+    /**
+     * Evaluates every board.
+     * @param boards Packed boards
+     * @param weights Evaluation weights (Board.FEATURE_COUNT values)
+     * @param out Receives the score of each board; at least boards.length long
+     */
+    public static void evaluate(long[] boards, double[] weights, double[] out) {
+        if (weights.length != Board.FEATURE_COUNT)
+            throw new IllegalArgumentException("Expected " + Board.FEATURE_COUNT + " weights, got " + weights.length);
+        if (out.length < boards.length)
+            throw new IllegalArgumentException("Output array is shorter than the board array");
+
+        if (VECTOR_KERNEL != null) VECTOR_KERNEL.evaluate(boards, 0, boards.length, weights, out);
+        else evaluateScalar(boards, 0, boards.length, weights, out);
+    }
+
+    /**
+     * Scalar evaluation of the boards in [from, to). Also used by the SIMD
+     * kernel for the boards left over after the last full vector.
+     * Features come from the per-line EvalTables: four rows and four columns.
+     */
+    static void evaluateScalar(long[] boards, int from, int to, double[] weights, double[] out) {
+        EvalTables tables = EvalTables.get();
+        for (int b = from; b < to; b++) {
+            long packed = boards[b];
+            int sum = 0, empty = 0, smoothness = 0, monotonicity = 0, max = 0;
+            for (int line = 0; line < 4; line++) {
+                int row = (int) (packed >>> ((3 - line) * 16)) & 0xFFFF;
+                int col = column(packed, line);
+                sum += tables.sum(row);
+                empty += tables.empty(row);
+                smoothness += tables.smoothness(row) + tables.smoothness(col);
+                monotonicity += tables.monotonicity(row) + tables.monotonicity(col);
+                max = Math.max(max, tables.max(row));
+            }
+
+            int cornerMax = (cell(packed, 0) == max || cell(packed, 3) == max
+                    || cell(packed, 12) == max || cell(packed, 15) == max) ? max : 0;
+            out[b] = combine(weights, sum, empty, smoothness, monotonicity, cornerMax);
+        }
+    }
+
+    /**
+     * Returns column c of a packed board as a 16-bit line, top cell in the highest bits.
+     */
+    private static int column(long packed, int c) {
+        int line = 0;
+        for (int row = 0; row < 4; row++) {
+            line = (line << 4) | ((int) (packed >>> ((15 - (row * 4 + c)) * 4)) & 0xF);
+        }
+        return line;
+    }
+
+    /**
+     * Returns the tile value of cell i (row-major) of a packed board.
+     */
+    private static int cell(long packed, int i) {
+        int exp = (int) (packed >>> ((15 - i) * 4)) & 0xF;
+        return exp == 0 ? 0 : 1 << exp;
+    }
+
+    /**
+     * Combines the features in the same order as Board.evaluateGrid, so the
+     * floating-point result is identical.
+     */
+    static double combine(double[] weights, long sum, long empty, long smoothness, long monotonicity, long cornerMax) {
+        return weights[0] * sum
+                + weights[1] * empty
+                + weights[2] * smoothness
+                + weights[3] * monotonicity
+                + weights[4] * cornerMax;
+    }
+
+    /**
+     * Unpacks a packed board into a grid.
+     * @param packed Packed board
+     * @return 4x4 grid of tile values
+     */
+    public static int[][] unpack(long packed) {
+        int[][] g = new int[4][4];
+        for (int i = 0; i < 16; i++) {
+            int exp = (int) (packed >>> ((15 - i) * 4)) & 0xF;
+            g[i / 4][i % 4] = exp == 0 ? 0 : 1 << exp;
+        }
+        return g;
+    }
+
+    /**
+     * Checks that the scalar path, the active path and Board.evaluateGrid agree
+     * on random boards, then measures throughput of the scalar and active paths.
+     * @param args [boards] [rounds]
+     */
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1 << 20;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        EvalTables.prewarm(); // built while the random boards are generated
+
+        Random rng = new Random(331);
+        long[] boards = new long[count];
+        for (int b = 0; b < count; b++) {
+            long packed = 0;
+            for (int i = 0; i < 16; i++) {
+                int exp = rng.nextInt(3) == 0 ? 0 : 1 + rng.nextInt(12);
+                packed = (packed << 4) | exp;
+            }
+            boards[b] = packed;
+        }
+        double[] weights = {1.0, 10.0, 0.1, 0.5, 1.0};
+
+        double[] scalar = new double[count];
+        double[] active = new double[count];
+        evaluateScalar(boards, 0, count, weights, scalar);
+        evaluate(boards, weights, active);
+
+        Board board = new Board();
+        board.setWeights(weights);
+        for (int b = 0; b < count; b++) {
+            if (Double.doubleToLongBits(scalar[b]) != Double.doubleToLongBits(active[b])
+                    || (b % 1024 == 0 && board.evaluateGrid(unpack(boards[b])) != scalar[b])) {
+                throw new IllegalStateException("Scores differ for board " + Long.toHexString(boards[b]));
+            }
+        }
+        System.out.println("Scores identical on " + count + " boards; vectorized: " + isVectorized());
+
+        long scalarTime = Long.MAX_VALUE, activeTime = Long.MAX_VALUE;
+        for (int round = 0; round < rounds; round++) {
+            long start = System.nanoTime();
+            evaluateScalar(boards, 0, count, weights, scalar);
+            scalarTime = Math.min(scalarTime, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            evaluate(boards, weights, active);
+            activeTime = Math.min(activeTime, System.nanoTime() - start);
+        }
+        System.out.printf("Scalar: %.1f M boards/sec%n", count / (scalarTime / 1e3));
+        System.out.printf("%s: %.1f M boards/sec%n", isVectorized() ? "Vector" : "Active (scalar)",
+                count / (activeTime / 1e3));
+    }
+}
@@ -10,6 +10,25 @@ import java.util.Random;
  */
 public class Board {
 
+    /** Search algorithms that can choose a move for this board */
+    public enum Engine {
+        MINIMAX("Minimax"),
+        ALPHA_BETA("Alpha-Beta"),
+        PVS("PVS"),
+        ASPIRATION("Aspiration");
+
+        private final String displayName;
+
+        Engine(String displayName) { this.displayName = displayName; }
+
+        /** Returns the name shown in the GUI and reports */
+        public String getDisplayName() { return displayName; }
+
+        /** Returns the display name, so engines can be listed directly in Swing components */
+        @Override
+        public String toString() { return displayName; }
+    }
+
     /** Constant size of the 4x4 board */
     private static final int BOARD_SIZE = 4;
 
@@ -19,15 +38,59 @@ public class Board {
     /** Random number generator for generating new tiles */
     private Random r;
 
-    /** Depth of search for Minimax and Alpha-Beta algorithms */
+    /** Default depth of search for Minimax and Alpha-Beta algorithms */
     private static final int SEARCH_DEPTH = 7;
 
+    /** Depth of search used by this board (defaults to SEARCH_DEPTH) */
+    private int searchDepth = SEARCH_DEPTH;
+
+    /**
+     * Number of features combined by evaluateGrid:
+     * tile sum, empty cells, smoothness, monotonicity, and max tile in a corner.
+     */
+    public static final int FEATURE_COUNT = 5;
+
+    /** Default evaluation weights: only the tile sum counts */
+    private static final double[] DEFAULT_WEIGHTS = {1.0, 0.0, 0.0, 0.0, 0.0};
+
+    /** Weights applied to each evaluation feature */
+    private double[] weights = DEFAULT_WEIGHTS.clone();
+
     /** Stores execution time for 10 Minimax moves (in nanoseconds) */
     private long minimaxTime = 0;
 
     /** Stores execution time for 10 Alpha-Beta moves (in nanoseconds) */
     private long alphaBetaTime = 0;
 
+    /** Number of search nodes visited by Minimax and Alpha-Beta since the board was created */
+    private long nodeCount = 0;
+
+    /** Value of the move chosen by the last root search (NaN before the first search of a game) */
+    private double lastRootValue = Double.NaN;
+
+    /** Cross-move search cache (null when turned off or not yet needed) */
+    private SearchCache searchCache = null;
+    private boolean searchCacheEnabled = false;
+
+    /** Log that AI moves are recorded to (null when not recording) */
+    private GameLog gameLog = null;
+
+    /** Picks the search depth of each AI move (null to always use searchDepth as set) */
+    private DepthScheduler depthScheduler = null;
+
+    /**
+     * Smallest remaining depth at which nodes use the search cache. A node one
+     * ply above the leaves is cheaper to search again than to look up.
+     */
+    private static final int MIN_CACHE_DEPTH = 2;
+
+    /** Moves in the order they are tried when nothing better is known */
+    private static final String[] MOVES = {"W", "A", "S", "D"};
+
+    /** Aspiration window half-width: a fraction of the previous value, but at least the minimum */
+    private static final double ASPIRATION_FRACTION = 0.1;
+    private static final double ASPIRATION_MIN_WINDOW = 8.0;
+
     /**
      * Constructor: Initializes the board and random generator,
      * and clears the board.
@@ -38,34 +101,172 @@ public class Board {
         clearBoard();
     }
 
+    /**
+     * Constructor: Creates a board whose tile spawns come from a seeded
+     * random generator, so games can be replayed exactly.
+     * @param seed Seed for tile generation
+     */
+    public Board(long seed) {
+        this.r = new Random(seed);
+        this.board = new int[BOARD_SIZE][BOARD_SIZE];
+        clearBoard();
+    }
+
+    /**
+     * Constructor: Creates a board holding the given tiles, e.g. a position
+     * read back from a game log.
+     * @param grid 4x4 grid of tile values (copied)
+     */
+    public Board(int[][] grid) {
+        this.r = new Random();
+        this.board = cloneGrid(grid);
+    }
+
+    /**
+     * Copy constructor: Creates an independent board with the same tiles.
+     * Search counters and timings start from zero.
+     * @param other Board to copy
+     */
+    public Board(Board other) {
+        this.r = new Random();
+        this.board = other.snapshotGrid();
+        this.searchDepth = other.searchDepth;
+        this.weights = other.weights.clone();
+        this.lastRootValue = other.lastRootValue;
+    }
+
     /**
      * Moves the board up and generates a new tile if any tile moved.
      */
-    public void moveUp() {
+    public synchronized void moveUp() {
         if (moveGridInPlace(board, "W")) generateRandomTile();
     }
 
     /**
      * Moves the board left and generates a new tile if any tile moved.
      */
-    public void moveLeft() {
+    public synchronized void moveLeft() {
         if (moveGridInPlace(board, "A")) generateRandomTile();
     }
 
     /**
      * Moves the board right and generates a new tile if any tile moved.
      */
-    public void moveRight() {
+    public synchronized void moveRight() {
         if (moveGridInPlace(board, "D")) generateRandomTile();
     }
 
     /**
      * Moves the board down and generates a new tile if any tile moved.
      */
-    public void moveDown() {
+    public synchronized void moveDown() {
         if (moveGridInPlace(board, "S")) generateRandomTile();
     }
 
+    /**
+     * Applies a move given as a direction and generates a new tile if any tile moved.
+     * @param dir Direction ("W", "A", "S", "D")
+     */
+    public void makeMove(String dir) {
+        switch (dir) {
+            case "W": moveUp(); break;
+            case "A": moveLeft(); break;
+            case "S": moveDown(); break;
+            case "D": moveRight(); break;
+        }
+    }
+
+    /**
+     * Chooses the best move with the given engine without applying it.
+     * @param engine Search algorithm to use
+     * @return Direction chosen ("W", "A", "S", "D"), or null if no move is possible
+     */
+    public String bestMove(Engine engine) {
+        return bestMove(engine, searchDepth);
+    }
+
+    /**
+     * Chooses the best move with the given engine and depth without applying it.
+     * The depth is passed down rather than stored, so a depth picked by the
+     * scheduler for one move never changes the board's configured depth.
+     * @param engine Search algorithm to use
+     * @param depth Search depth in plies
+     * @return Direction chosen ("W", "A", "S", "D"), or null if no move is possible
+     */
+    private String bestMove(Engine engine, int depth) {
+        switch (engine) {
+            case MINIMAX: return bestMoveMiniMax(depth);
+            case ALPHA_BETA: return bestMoveABprune(depth);
+            case PVS: return rootSearch(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, true, depth);
+            case ASPIRATION: return bestMoveAspiration(depth);
+            default: throw new IllegalArgumentException("Unknown engine: " + engine);
+        }
+    }
+
+    /**
+     * Chooses a move with the given engine, applies it, and records it
+     * in the game log if one is attached. MiniMax() and ABprune() are
+     * shorthands for the MINIMAX and ALPHA_BETA engines.
+     * @param engine Search algorithm to use
+     * @return Direction chosen, or null if no move is possible
+     */
+    public String playMove(Engine engine) {
+        long packed = gameLog == null ? 0 : SearchCache.pack(board);
+        int depth = depthScheduler != null ? depthScheduler.chooseDepth(this) : searchDepth;
+        long start = System.nanoTime();
+        String bestMove = bestMove(engine, depth);
+        long nanos = System.nanoTime() - start;
+        if (depthScheduler != null) depthScheduler.recordMove(depth, nanos);
+        if (bestMove == null) return null;
+
+        makeMove(bestMove);
+        if (gameLog != null) {
+            gameLog.recordMove(packed, engine, depth, bestMove, nanos);
+            if (isGameOver()) gameLog.endGame(getScore(), getHighestTile());
+        }
+        return bestMove;
+    }
+
+    /**
+     * Searches every legal move with full-window alpha-beta and returns the
+     * exact value of each, e.g. to see how much worse a played move was.
+     * @return Value of each move in W, A, S, D order (NaN if the move is not legal)
+     */
+    public double[] evaluateMoves() {
+        startCachedSearch();
+        double[] values = new double[MOVES.length];
+        for (int i = 0; i < MOVES.length; i++) {
+            int[][] clone = cloneGrid(board);
+            values[i] = moveGridInPlace(clone, MOVES[i])
+                    ? minimaxAlphaBeta(clone, searchDepth - 1, false, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY)
+                    : Double.NaN;
+        }
+        return values;
+    }
+
+    /**
+     * Attaches a log that every MiniMax() and ABprune() move is recorded to,
+     * with a game header written by startNewGame().
+     * @param gameLog Log to record to, or null to stop recording
+     */
+    public void setGameLog(GameLog gameLog) {
+        this.gameLog = gameLog;
+    }
+
+    /**
+     * Attaches a scheduler that picks the search depth of every move played
+     * with playMove(), MiniMax() or ABprune(). The depth set with
+     * setSearchDepth() is left unchanged and still used by bestMove(),
+     * evaluateMoves() and copies of the board.
+     * @param depthScheduler Scheduler to use, or null to search at a fixed depth
+     */
+    public void setDepthScheduler(DepthScheduler depthScheduler) {
+        this.depthScheduler = depthScheduler;
+    }
+
+    /** Returns the attached depth scheduler, or null if the depth is fixed */
+    public DepthScheduler getDepthScheduler() { return depthScheduler; }
+
     /**
      * Generates a new tile (2 or 4) at a random empty cell.
      */
@@ -105,15 +306,59 @@ public class Board {
         return isGameOverGrid(board);
     }
 
+    /**
+     * Returns the number of empty cells.
+     */
+    public synchronized int getEmptyCellCount() {
+        return emptyCellsGrid(board).size();
+    }
+
+    /**
+     * Returns the number of different tile values on the board.
+     */
+    public synchronized int getDistinctTileCount() {
+        int seen = 0;
+        for (int[] row : board) {
+            for (int v : row) {
+                if (v != 0) seen |= v; // tiles are powers of two, so each value sets its own bit
+            }
+        }
+        return Integer.bitCount(seen);
+    }
+
+    /**
+     * Returns the number of directions that would move at least one tile.
+     */
+    public synchronized int getLegalMoveCount() {
+        int legal = 0;
+        for (String dir : MOVES) {
+            if (moveGridInPlace(cloneGrid(board), dir)) legal++;
+        }
+        return legal;
+    }
+
     /**
      * Starts a new game by clearing the board and generating two tiles.
      */
-    public void startNewGame() {
+    public synchronized void startNewGame() {
         clearBoard();
+        lastRootValue = Double.NaN;
+        if (searchCache != null) searchCache.clear();
+        if (gameLog != null) gameLog.startGame(weights);
+        if (depthScheduler != null) depthScheduler.startGame();
         generateRandomTile();
         generateRandomTile();
     }
 
+    /**
+     * Returns a copy of the current grid. Moves are applied under the same lock,
+     * so the copy is never taken halfway through a move.
+     * @return Deep copy of the board
+     */
+    public synchronized int[][] snapshotGrid() {
+        return cloneGrid(board);
+    }
+
     /**
      * Clears all cells on the board (sets to 0).
      */
@@ -132,29 +377,31 @@ public class Board {
      * @return Direction chosen ("W", "A", "S", "D")
      */
     public String MiniMax() {
-        String[] moves = new String[]{"W", "A", "S", "D"};
+        return playMove(Engine.MINIMAX);
+    }
+
+    /**
+     * Chooses the best move using Minimax (without pruning) without applying it.
+     * @param depth Search depth in plies
+     * @return Direction chosen ("W", "A", "S", "D")
+     */
+    private String bestMoveMiniMax(int depth) {
+        startCachedSearch();
         double bestValue = Double.NEGATIVE_INFINITY;
         String bestMove = null;
 
-        for (String m : moves) {
+        for (String m : MOVES) {
             int[][] clone = cloneGrid(board);
             boolean moved = moveGridInPlace(clone, m);
             if (!moved) continue;
-            double value = minimax(clone, SEARCH_DEPTH - 1, false);
+            double value = minimax(clone, depth - 1, false);
             if (value > bestValue) {
                 bestValue = value;
                 bestMove = m;
             }
         }
 
-        if (bestMove != null) {
-            switch (bestMove) {
-                case "W": moveUp(); break;
-                case "A": moveLeft(); break;
-                case "S": moveDown(); break;
-                case "D": moveRight(); break;
-            }
-        }
+        lastRootValue = bestValue;
         return bestMove;
     }
 
@@ -166,19 +413,27 @@ public class Board {
      * @return Heuristic value of the grid
      */
     private double minimax(int[][] g, int depth, boolean maximizingPlayer) {
+        nodeCount++;
         if (depth == 0 || isGameOverGrid(g)) return evaluateGrid(g);
 
+        long key = cacheKey(g, depth);
+        int slot = key == SearchCache.NO_KEY ? -1 : searchCache.probe(key, maximizingPlayer);
+        if (slot >= 0) {
+            double cached = searchCache.cutoff(slot, depth, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+            if (!Double.isNaN(cached)) return cached;
+        }
+
+        double result;
         if (maximizingPlayer) {
             double best = Double.NEGATIVE_INFINITY;
-            String[] moves = new String[]{"W", "A", "S", "D"};
-            for (String m : moves) {
+            for (String m : MOVES) {
                 int[][] child = cloneGrid(g);
                 boolean moved = moveGridInPlace(child, m);
                 if (!moved) continue;
                 double val = minimax(child, depth - 1, false);
                 if (val > best) best = val;
             }
-            return best == Double.NEGATIVE_INFINITY ? evaluateGrid(g) : best;
+            result = best == Double.NEGATIVE_INFINITY ? evaluateGrid(g) : best;
         } else {
             ArrayList<int[]> empty = emptyCellsGrid(g);
             if (empty.isEmpty()) return evaluateGrid(g);
@@ -191,8 +446,14 @@ public class Board {
                 int[][] child4 = cloneGrid(g); child4[r][c] = 4;
                 best = Math.min(best, minimax(child4, depth - 1, true));
             }
-            return best;
+            result = best;
+        }
+
+        if (key != SearchCache.NO_KEY) {
+            searchCache.store(key, maximizingPlayer, depth, result,
+                    Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, -1);
         }
+        return result;
     }
 
     // ===================== AI: Minimax with alpha-beta pruning =====================
@@ -202,33 +463,72 @@ public class Board {
      * @return Direction chosen ("W", "A", "S", "D")
      */
     public String ABprune() {
-        String[] moves = new String[]{"W", "A", "S", "D"};
+        return playMove(Engine.ALPHA_BETA);
+    }
+
+    /**
+     * Chooses the best move using Minimax with alpha-beta pruning without applying it.
+     * @param depth Search depth in plies
+     * @return Direction chosen ("W", "A", "S", "D")
+     */
+    private String bestMoveABprune(int depth) {
+        return rootSearch(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, false, depth);
+    }
+
+    /**
+     * Searches every move from the current board within the window (alpha, beta)
+     * and records the chosen move's value in lastRootValue. A value outside the
+     * window is only a bound, not an exact value.
+     *
+     * The move cached as best for this board is searched first. Ties still go
+     * to the move that comes first in W, A, S, D order, so the choice does not
+     * depend on the search order: moves earlier in that order than the current
+     * best are searched with alpha lowered just enough to see an equal value.
+     * @param alpha Lower bound of the root window
+     * @param beta Upper bound of the root window
+     * @param principalVariation True to search with PVS, false with plain alpha-beta
+     * @param depth Search depth in plies
+     * @return Direction chosen ("W", "A", "S", "D")
+     */
+    private String rootSearch(double alpha, double beta, boolean principalVariation, int depth) {
+        startCachedSearch();
+        double alphaOrig = alpha;
+        long key = cacheKey(board, depth);
+        int slot = key == SearchCache.NO_KEY ? -1 : searchCache.probe(key, true);
+        int hint = slot >= 0 ? searchCache.hint(slot) : -1;
+
         double bestValue = Double.NEGATIVE_INFINITY;
-        String bestMove = null;
-        double alpha = Double.NEGATIVE_INFINITY;
-        double beta = Double.POSITIVE_INFINITY;
+        int bestIndex = -1;
 
-        for (String m : moves) {
+        for (int k = 0; k < MOVES.length; k++) {
+            int index = childOrder(k, hint, MOVES.length);
             int[][] clone = cloneGrid(board);
-            boolean moved = moveGridInPlace(clone, m);
+            boolean moved = moveGridInPlace(clone, MOVES[index]);
             if (!moved) continue;
-            double value = minimaxAlphaBeta(clone, SEARCH_DEPTH - 1, false, alpha, beta);
-            if (value > bestValue) {
+
+            double floor = bestIndex >= 0 && index < bestIndex ? Math.nextDown(alpha) : alpha;
+            double value;
+            if (!principalVariation) {
+                value = minimaxAlphaBeta(clone, depth - 1, false, floor, beta);
+            } else if (bestIndex < 0) {
+                value = principalVariationSearch(clone, depth - 1, false, floor, beta);
+            } else {
+                // Null window: only find out whether this move beats the best so far
+                value = principalVariationSearch(clone, depth - 1, false, floor, Math.nextUp(floor));
+                if (value > floor && value < beta)
+                    value = principalVariationSearch(clone, depth - 1, false, floor, beta);
+            }
+            if (value > bestValue || (value == bestValue && index < bestIndex)) {
                 bestValue = value;
-                bestMove = m;
+                bestIndex = index;
             }
             alpha = Math.max(alpha, value);
+            if (alpha >= beta) break;
         }
 
-        if (bestMove != null) {
-            switch (bestMove) {
-                case "W": moveUp(); break;
-                case "A": moveLeft(); break;
-                case "S": moveDown(); break;
-                case "D": moveRight(); break;
-            }
-        }
-        return bestMove;
+        if (key != SearchCache.NO_KEY) searchCache.store(key, true, depth, bestValue, alphaOrig, beta, bestIndex);
+        lastRootValue = bestValue;
+        return bestIndex < 0 ? null : MOVES[bestIndex];
     }
 
     /**
@@ -241,38 +541,209 @@ public class Board {
      * @return Heuristic value of the grid
      */
     private double minimaxAlphaBeta(int[][] g, int depth, boolean maximizingPlayer, double alpha, double beta) {
+        nodeCount++;
         if (depth == 0 || isGameOverGrid(g)) return evaluateGrid(g);
 
+        long key = cacheKey(g, depth);
+        int slot = key == SearchCache.NO_KEY ? -1 : searchCache.probe(key, maximizingPlayer);
+        int hint = -1;
+        if (slot >= 0) {
+            double cached = searchCache.cutoff(slot, depth, alpha, beta);
+            if (!Double.isNaN(cached)) return cached;
+            hint = searchCache.hint(slot);
+        }
+        double alphaOrig = alpha, betaOrig = beta;
+        int bestChild = -1;
+        double result;
+
         if (maximizingPlayer) {
             double value = Double.NEGATIVE_INFINITY;
-            String[] moves = new String[]{"W", "A", "S", "D"};
-            for (String m : moves) {
+            for (int k = 0; k < MOVES.length; k++) {
+                int index = childOrder(k, hint, MOVES.length);
                 int[][] child = cloneGrid(g);
-                boolean moved = moveGridInPlace(child, m);
+                boolean moved = moveGridInPlace(child, MOVES[index]);
                 if (!moved) continue;
-                value = Math.max(value, minimaxAlphaBeta(child, depth - 1, false, alpha, beta));
+                double score = minimaxAlphaBeta(child, depth - 1, false, alpha, beta);
+                if (score > value) { value = score; bestChild = index; }
                 alpha = Math.max(alpha, value);
                 if (alpha >= beta) break; // beta cutoff
             }
-            return value == Double.NEGATIVE_INFINITY ? evaluateGrid(g) : value;
+            result = value == Double.NEGATIVE_INFINITY ? evaluateGrid(g) : value;
         } else {
             ArrayList<int[]> empty = emptyCellsGrid(g);
             if (empty.isEmpty()) return evaluateGrid(g);
 
+            // Children are (cell, 2) and (cell, 4) for every empty cell, in that order
+            int count = empty.size() * 2;
             double value = Double.POSITIVE_INFINITY;
-            for (int[] cell : empty) {
-                int rr = cell[0], cc = cell[1];
-                int[][] child2 = cloneGrid(g); child2[rr][cc] = 2;
-                value = Math.min(value, minimaxAlphaBeta(child2, depth - 1, true, alpha, beta));
+            for (int k = 0; k < count; k++) {
+                int index = childOrder(k, hint, count);
+                int[] cell = empty.get(index / 2);
+                int[][] child = cloneGrid(g); child[cell[0]][cell[1]] = index % 2 == 0 ? 2 : 4;
+                double score = minimaxAlphaBeta(child, depth - 1, true, alpha, beta);
+                if (score < value) { value = score; bestChild = index; }
                 beta = Math.min(beta, value);
-                if (alpha >= beta) return value;
-                int[][] child4 = cloneGrid(g); child4[rr][cc] = 4;
-                value = Math.min(value, minimaxAlphaBeta(child4, depth - 1, true, alpha, beta));
+                if (alpha >= beta) break; // alpha cutoff
+            }
+            result = value;
+        }
+
+        if (key != SearchCache.NO_KEY) searchCache.store(key, maximizingPlayer, depth, result, alphaOrig, betaOrig, bestChild);
+        return result;
+    }
+
+    // ===================== AI: Principal variation search and aspiration windows =====================
+
+    /**
+     * Chooses the best move with an alpha-beta search whose root window is centered
+     * on the previous move's value. If the result falls outside the window it is
+     * only a bound, so the move is searched again with the full window.
+     * @param depth Search depth in plies
+     * @return Direction chosen ("W", "A", "S", "D")
+     */
+    private String bestMoveAspiration(int depth) {
+        double previous = lastRootValue;
+        if (Double.isNaN(previous) || Double.isInfinite(previous)) {
+            return rootSearch(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, false, depth);
+        }
+
+        double window = Math.max(ASPIRATION_MIN_WINDOW, Math.abs(previous) * ASPIRATION_FRACTION);
+        double low = previous - window;
+        double high = previous + window;
+        String move = rootSearch(low, high, false, depth);
+        if (move != null && (lastRootValue <= low || lastRootValue >= high)) {
+            move = rootSearch(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, false, depth);
+        }
+        return move;
+    }
+
+    /**
+     * Recursive principal variation search (NegaScout). The first child of each
+     * node is searched with the full window; the rest are searched with a null
+     * window that only tests whether they improve on the first, and are searched
+     * again with the full window when they do.
+     * @param g Current grid
+     * @param depth Remaining search depth
+     * @param maximizingPlayer True if player's turn
+     * @param alpha Alpha value for pruning
+     * @param beta Beta value for pruning
+     * @return Heuristic value of the grid
+     */
+    private double principalVariationSearch(int[][] g, int depth, boolean maximizingPlayer, double alpha, double beta) {
+        nodeCount++;
+        if (depth == 0 || isGameOverGrid(g)) return evaluateGrid(g);
+
+        long key = cacheKey(g, depth);
+        int slot = key == SearchCache.NO_KEY ? -1 : searchCache.probe(key, maximizingPlayer);
+        int hint = -1;
+        if (slot >= 0) {
+            double cached = searchCache.cutoff(slot, depth, alpha, beta);
+            if (!Double.isNaN(cached)) return cached;
+            hint = searchCache.hint(slot);
+        }
+        double alphaOrig = alpha, betaOrig = beta;
+        int bestChild = -1;
+        double result;
+
+        if (maximizingPlayer) {
+            double value = Double.NEGATIVE_INFINITY;
+            boolean first = true;
+            for (int k = 0; k < MOVES.length; k++) {
+                int index = childOrder(k, hint, MOVES.length);
+                int[][] child = cloneGrid(g);
+                boolean moved = moveGridInPlace(child, MOVES[index]);
+                if (!moved) continue;
+                double score;
+                if (first) {
+                    score = principalVariationSearch(child, depth - 1, false, alpha, beta);
+                    first = false;
+                } else {
+                    score = principalVariationSearch(child, depth - 1, false, alpha, Math.nextUp(alpha));
+                    if (score > alpha && score < beta)
+                        score = principalVariationSearch(child, depth - 1, false, alpha, beta);
+                }
+                if (score > value) { value = score; bestChild = index; }
+                alpha = Math.max(alpha, value);
+                if (alpha >= beta) break; // beta cutoff
+            }
+            result = value == Double.NEGATIVE_INFINITY ? evaluateGrid(g) : value;
+        } else {
+            ArrayList<int[]> empty = emptyCellsGrid(g);
+            if (empty.isEmpty()) return evaluateGrid(g);
+
+            // Children are (cell, 2) and (cell, 4) for every empty cell, in that order
+            int count = empty.size() * 2;
+            double value = Double.POSITIVE_INFINITY;
+            for (int k = 0; k < count; k++) {
+                int index = childOrder(k, hint, count);
+                int[] cell = empty.get(index / 2);
+                int[][] child = cloneGrid(g); child[cell[0]][cell[1]] = index % 2 == 0 ? 2 : 4;
+                double score;
+                if (k == 0) {
+                    score = principalVariationSearch(child, depth - 1, true, alpha, beta);
+                } else {
+                    score = principalVariationSearch(child, depth - 1, true, Math.nextDown(beta), beta);
+                    if (score < beta && score > alpha)
+                        score = principalVariationSearch(child, depth - 1, true, alpha, beta);
+                }
+                if (score < value) { value = score; bestChild = index; }
                 beta = Math.min(beta, value);
-                if (alpha >= beta) return value;
+                if (alpha >= beta) break; // alpha cutoff
             }
-            return value;
+            result = value;
         }
+
+        if (key != SearchCache.NO_KEY) searchCache.store(key, maximizingPlayer, depth, result, alphaOrig, betaOrig, bestChild);
+        return result;
+    }
+
+    // ===================== Search cache =====================
+
+    /**
+     * Returns the cache key of a grid, or NO_KEY if the cache is off, the grid
+     * cannot be cached, or the node is too shallow to be worth caching.
+     * @param g Grid
+     * @param depth Remaining search depth of the node
+     */
+    private long cacheKey(int[][] g, int depth) {
+        if (searchCache == null || depth < MIN_CACHE_DEPTH) return SearchCache.NO_KEY;
+        return SearchCache.pack(g);
+    }
+
+    /**
+     * Returns the index of the child to search k-th out of count: the cached
+     * best child first, then the others in their usual order.
+     */
+    private static int childOrder(int k, int hint, int count) {
+        if (hint < 0 || hint >= count) return k;
+        if (k == 0) return hint;
+        return k <= hint ? k - 1 : k;
+    }
+
+    /**
+     * Turns the cross-move search cache on or off. While on, search results are
+     * kept from one AI move to the next until the game ends. Cached values are
+     * only reused at the same depth, so the moves chosen are the same either way.
+     * The cache memory is allocated at the first search.
+     * @param enabled True to keep a cache of at most SearchCache.DEFAULT_MAX_BYTES
+     */
+    public void setSearchCacheEnabled(boolean enabled) {
+        searchCacheEnabled = enabled;
+        if (!enabled) searchCache = null;
+    }
+
+    /** Returns true if the cross-move search cache is on */
+    public boolean isSearchCacheEnabled() { return searchCacheEnabled; }
+
+    /**
+     * Called at the start of every root search. The cache is allocated here
+     * rather than in setSearchCacheEnabled, so creating a board stays cheap
+     * and the memory is only taken once the AI actually searches.
+     */
+    private void startCachedSearch() {
+        if (!searchCacheEnabled) return;
+        if (searchCache == null) searchCache = new SearchCache(SearchCache.DEFAULT_MAX_BYTES);
+        searchCache.newSearch();
     }
 
     /**
@@ -410,16 +881,55 @@ public class Board {
     }
 
     /**
-     * Heuristic evaluation of the grid. Currently sum of all tiles.
+     * Heuristic evaluation of the grid: a weighted sum of
+     * <ul>
+     *   <li>the sum of all tiles,</li>
+     *   <li>the number of empty cells,</li>
+     *   <li>smoothness: minus the total difference between neighbouring tiles,</li>
+     *   <li>monotonicity: minus, for each row and column, the smaller of its
+     *       total increase and total decrease,</li>
+     *   <li>the highest tile if it sits in a corner, otherwise 0.</li>
+     * </ul>
+     * With the default weights this is the sum of all tiles.
+     * Neighbour differences are only computed when smoothness or
+     * monotonicity has a non-zero weight, and the corner check only when
+     * its weight is non-zero, so the default evaluation stays cheap.
      */
     public double evaluateGrid(int[][] g) {
-        double sum = 0.0;
+        int sum = 0;
+        int empty = 0;
+        int smoothness = 0;
+        int monotonicity = 0;
+        int max = 0;
+        boolean shape = weights[2] != 0 || weights[3] != 0;
+
         for (int i = 0; i < BOARD_SIZE; i++) {
+            int rowInc = 0, rowDec = 0, colInc = 0, colDec = 0;
             for (int j = 0; j < BOARD_SIZE; j++) {
-                sum += g[i][j];
+                int v = g[i][j];
+                sum += v;
+                if (v == 0) empty++;
+                if (v > max) max = v;
+                if (shape && j < BOARD_SIZE - 1) {
+                    int rowDiff = g[i][j + 1] - v;      // along row i
+                    int colDiff = g[j + 1][i] - g[j][i]; // along column i
+                    smoothness -= Math.abs(rowDiff) + Math.abs(colDiff);
+                    if (rowDiff > 0) rowInc += rowDiff; else rowDec -= rowDiff;
+                    if (colDiff > 0) colInc += colDiff; else colDec -= colDiff;
+                }
             }
+            monotonicity -= Math.min(rowInc, rowDec) + Math.min(colInc, colDec);
         }
-        return sum;
+
+        int last = BOARD_SIZE - 1;
+        int cornerMax = weights[4] != 0
+                && (g[0][0] == max || g[0][last] == max || g[last][0] == max || g[last][last] == max) ? max : 0;
+
+        return weights[0] * sum
+                + weights[1] * empty
+                + weights[2] * smoothness
+                + weights[3] * monotonicity
+                + weights[4] * cornerMax;
     }
 
     /**
@@ -444,6 +954,17 @@ public class Board {
         return true;
     }
 
+    /**
+     * Returns the current score (sum of all tiles on the board).
+     */
+    public int getScore() {
+        int score = 0;
+        for (int i = 0; i < BOARD_SIZE; i++)
+            for (int j = 0; j < BOARD_SIZE; j++)
+                score += board[i][j];
+        return score;
+    }
+
     /**
      * Returns the highest tile currently on the board.
      */
@@ -480,4 +1001,50 @@ public class Board {
     public long getAlphaBetaTime() { return alphaBetaTime; }
     public void setMinimaxTime(long time) { this.minimaxTime = time; }
     public void setAlphaBetaTime(long time) { this.alphaBetaTime = time; }
+
+    /**
+     * Sets the evaluation weights used by evaluateGrid.
+     * @param weights One weight per feature (FEATURE_COUNT values)
+     */
+    public void setWeights(double[] weights) {
+        if (weights.length != FEATURE_COUNT)
+            throw new IllegalArgumentException("Expected " + FEATURE_COUNT + " weights, got " + weights.length);
+        this.weights = weights.clone();
+        if (searchCache != null) searchCache.clear(); // cached values used the old weights
+    }
+
+    /** Returns a copy of the evaluation weights */
+    public double[] getWeights() { return weights.clone(); }
+
+    /** Returns a copy of the default evaluation weights */
+    public static double[] getDefaultWeights() { return DEFAULT_WEIGHTS.clone(); }
+
+    /**
+     * Sets the search depth used by the AI moves.
+     * @param depth Depth in plies (at least 1)
+     */
+    public void setSearchDepth(int depth) {
+        if (depth < 1) throw new IllegalArgumentException("Search depth must be at least 1: " + depth);
+        this.searchDepth = depth;
+    }
+
+    /** Returns the search depth used by the AI moves */
+    public int getSearchDepth() { return searchDepth; }
+
+    /**
+     * Returns the value of the move chosen by the last root search
+     * (NaN before the first search of a game). The ASPIRATION engine
+     * centers its window on it.
+     */
+    public double getLastRootValue() { return lastRootValue; }
+
+    /**
+     * Sets the value the next ASPIRATION search centers its window on,
+     * e.g. to carry it over to a copy of the board that searches instead.
+     * @param value Previous root value, or NaN to search with a full window
+     */
+    public void setLastRootValue(double value) { this.lastRootValue = value; }
+
+    /** Returns the number of search nodes visited so far */
+    public long getNodeCount() { return nodeCount; }
 }
@@ -2,10 +2,16 @@ package code;
 
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
 
 /**
  * BoardPanel is a custom JPanel that displays the 2048 game board.
  * It handles rendering the tiles, their colors, and values.
+ * Tiles are pre-rendered once per value, size and display scale, and only
+ * tiles whose value changed are repainted.
  */
 public class BoardPanel extends JPanel {
 
@@ -15,13 +21,40 @@ public class BoardPanel extends JPanel {
     /** Size of the grid (4x4) */
     private static final int GRID_SIZE = 4;
 
+    /** Colors shared by every tile, created once instead of on every repaint */
+    private static final Color BACKGROUND_COLOR = new Color(0xBBADA0);
+    private static final Color DARK_TEXT_COLOR = new Color(0x776E65);
+    private static final Color LIGHT_TEXT_COLOR = Color.WHITE;
+
+    /** Values currently drawn on screen, used to find tiles that changed */
+    private final int[][] grid = new int[GRID_SIZE][GRID_SIZE];
+
+    /**
+     * Pre-rendered tile images indexed by log2 of the tile value (index 0 is
+     * an empty cell), valid for cachedTileSize and cachedScale only
+     */
+    private final BufferedImage[] tileCache = new BufferedImage[Integer.SIZE];
+    private int cachedTileSize = -1;
+    private double cachedScale = 0;
+
     /**
      * Constructor: Initializes the panel with a Board reference and sets background color.
      * @param board Board object to be displayed
      */
     public BoardPanel(Board board) {
         this.board = board;
-        setBackground(new Color(0xBBADA0)); // Background color for empty spaces
+        setBackground(BACKGROUND_COLOR); // Background color for empty spaces
+        copyBoard();
+
+        // Tile images depend on the tile size, so drop them when the panel is resized
+        addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentResized(ComponentEvent e) {
+                Arrays.fill(tileCache, null);
+                cachedTileSize = -1;
+                repaint();
+            }
+        });
     }
 
     /**
@@ -30,12 +63,54 @@ public class BoardPanel extends JPanel {
      */
     public void setBoard(Board board) {
         this.board = board;
+        copyBoard();
         repaint();
     }
 
+    /**
+     * Compares the board to what is on screen and repaints only the tiles that changed.
+     * Must be called on the EDT.
+     */
+    public void refreshTiles() {
+        if (board == null) return;
+        showGrid(board.snapshotGrid());
+    }
+
+    /**
+     * Displays a snapshot of the board, repainting only the tiles that differ
+     * from what is on screen. Used by the autoplay render loop, which hands
+     * over snapshots instead of letting the panel read a board that is
+     * being changed by another thread. Must be called on the EDT.
+     * @param values Grid snapshot to display
+     */
+    public void showGrid(int[][] values) {
+        Layout layout = new Layout(getWidth(), getHeight());
+        for (int row = 0; row < GRID_SIZE; row++) {
+            for (int col = 0; col < GRID_SIZE; col++) {
+                int value = values[row][col];
+                if (grid[row][col] != value) {
+                    grid[row][col] = value;
+                    repaint(layout.tileX(col), layout.tileY(row), layout.tileSize, layout.tileSize);
+                }
+            }
+        }
+    }
+
+    /**
+     * Copies every board value into the on-screen grid.
+     */
+    private void copyBoard() {
+        if (board == null) return;
+        for (int row = 0; row < GRID_SIZE; row++) {
+            for (int col = 0; col < GRID_SIZE; col++) {
+                grid[row][col] = board.getValueAt(row, col);
+            }
+        }
+    }
+
     /**
      * Paints the board and tiles on the panel.
-     * Uses anti-aliasing for smoother graphics.
+     * Only tiles intersecting the clip region are drawn, using cached tile images.
      * @param g Graphics context
      */
     @Override
@@ -44,74 +119,143 @@ public class BoardPanel extends JPanel {
 
         if (board == null) return;
 
-        Graphics2D g2 = (Graphics2D) g;
-        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-
-        int panelWidth = getWidth();
-        int panelHeight = getHeight();
-
-        // Calculate gap and tile size based on panel dimensions
-        int gap = Math.max(5, panelWidth / 80);
-        int tileSize = (Math.min(panelWidth, panelHeight) - (GRID_SIZE + 1) * gap) / GRID_SIZE;
-
-        int boardWidth = GRID_SIZE * tileSize + (GRID_SIZE + 1) * gap;
-        int boardHeight = GRID_SIZE * tileSize + (GRID_SIZE + 1) * gap;
+        Layout layout = new Layout(getWidth(), getHeight());
+        if (layout.tileSize <= 0) return;
+        // Device pixels per unit, e.g. 2 on a HiDPI display; tiles are rendered at that resolution
+        double scale = ((Graphics2D) g).getTransform().getScaleX();
+        if (scale <= 0) scale = 1;
+        if (layout.tileSize != cachedTileSize || scale != cachedScale) {
+            Arrays.fill(tileCache, null);
+            cachedTileSize = layout.tileSize;
+            cachedScale = scale;
+        }
 
-        // Center the board on the panel
-        int xOffset = (panelWidth - boardWidth) / 2;
-        int yOffset = (panelHeight - boardHeight) / 2;
+        Rectangle clip = g.getClipBounds();
 
         // Draw each tile
         for (int row = 0; row < GRID_SIZE; row++) {
             for (int col = 0; col < GRID_SIZE; col++) {
-                int x = xOffset + gap + col * (tileSize + gap);
-                int y = yOffset + gap + row * (tileSize + gap);
-                int value = board.getValueAt(row, col);
-
-                // Draw tile background
-                g2.setColor(getTileColor(value));
-                g2.fillRoundRect(x, y, tileSize, tileSize, 20, 20);
-
-                // Draw tile value
-                if (value != 0) {
-                    g2.setColor(value <= 4 ? new Color(0x776E65) : Color.WHITE); // Text color
-                    int fontSize = Math.max(tileSize / 3, 18);
-                    g2.setFont(new Font("Arial", Font.BOLD, fontSize));
-
-                    String text = String.valueOf(value);
-                    FontMetrics fm = g2.getFontMetrics();
-                    int textWidth = fm.stringWidth(text);
-                    int textHeight = fm.getAscent();
-
-                    // Center text in tile
-                    int textX = x + (tileSize - textWidth) / 2;
-                    int textY = y + (tileSize + textHeight) / 2 - 2;
-                    g2.drawString(text, textX, textY);
-                }
+                int x = layout.tileX(col);
+                int y = layout.tileY(row);
+                if (clip != null && !clip.intersects(x, y, layout.tileSize, layout.tileSize)) continue;
+                g.drawImage(getTileImage(grid[row][col], layout.tileSize, scale),
+                        x, y, layout.tileSize, layout.tileSize, null);
             }
         }
     }
 
+    /**
+     * Returns the cached image for a tile value, rendering it on first use.
+     * @param value Tile value
+     * @param tileSize Tile width and height in pixels
+     * @param scale Device pixels per pixel of the panel
+     * @return Image of the tile
+     */
+    private BufferedImage getTileImage(int value, int tileSize, double scale) {
+        if (Integer.bitCount(value) > 1) return renderTile(value, tileSize, scale); // not a real tile; never cached
+        int index = value == 0 ? 0 : Integer.numberOfTrailingZeros(value);
+        if (tileCache[index] == null) tileCache[index] = renderTile(value, tileSize, scale);
+        return tileCache[index];
+    }
+
+    /**
+     * Renders a single tile (background and value) into a new image.
+     * The image has one pixel per device pixel, so it stays sharp when drawn
+     * tileSize wide on a scaled display.
+     * Uses anti-aliasing for smoother graphics.
+     * @param value Tile value
+     * @param tileSize Tile width and height in pixels
+     * @param scale Device pixels per pixel of the panel
+     * @return Rendered tile image
+     */
+    private BufferedImage renderTile(int value, int tileSize, double scale) {
+        int pixels = (int) Math.ceil(tileSize * scale);
+        BufferedImage image = new BufferedImage(pixels, pixels, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2 = image.createGraphics();
+        g2.scale(pixels / (double) tileSize, pixels / (double) tileSize);
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+
+        // Draw tile background
+        g2.setColor(getTileColor(value));
+        g2.fillRoundRect(0, 0, tileSize, tileSize, 20, 20);
+
+        // Draw tile value
+        if (value != 0) {
+            g2.setColor(value <= 4 ? DARK_TEXT_COLOR : LIGHT_TEXT_COLOR); // Text color
+            int fontSize = Math.max(tileSize / 3, 18);
+            g2.setFont(new Font("Arial", Font.BOLD, fontSize));
+
+            String text = String.valueOf(value);
+            FontMetrics fm = g2.getFontMetrics();
+            int textWidth = fm.stringWidth(text);
+            int textHeight = fm.getAscent();
+
+            // Center text in tile
+            int textX = (tileSize - textWidth) / 2;
+            int textY = (tileSize + textHeight) / 2 - 2;
+            g2.drawString(text, textX, textY);
+        }
+
+        g2.dispose();
+        return image;
+    }
+
+    /** Tile colors indexed by log2 of the value (index 0 is an empty cell) */
+    private static final Color[] TILE_COLORS = {
+            new Color(0xCDC1B4), // 0
+            new Color(0xEEE4DA), // 2
+            new Color(0xEDE0C8), // 4
+            new Color(0xF2B179), // 8
+            new Color(0xF59563), // 16
+            new Color(0xF67C5F), // 32
+            new Color(0xF65E3B), // 64
+            new Color(0xEDCF72), // 128
+            new Color(0xEDCC61), // 256
+            new Color(0xEDC850), // 512
+            new Color(0xEDC53F), // 1024
+            new Color(0xEDC22E)  // 2048
+    };
+
+    /** Color for tiles beyond 2048 */
+    private static final Color HIGH_TILE_COLOR = new Color(0x3C3A32);
+
     /**
      * Returns the color associated with a tile value.
      * @param value Tile value
      * @return Color for the tile
      */
     private Color getTileColor(int value) {
-        switch (value) {
-            case 0: return new Color(0xCDC1B4);
-            case 2: return new Color(0xEEE4DA);
-            case 4: return new Color(0xEDE0C8);
-            case 8: return new Color(0xF2B179);
-            case 16: return new Color(0xF59563);
-            case 32: return new Color(0xF67C5F);
-            case 64: return new Color(0xF65E3B);
-            case 128: return new Color(0xEDCF72);
-            case 256: return new Color(0xEDCC61);
-            case 512: return new Color(0xEDC850);
-            case 1024: return new Color(0xEDC53F);
-            case 2048: return new Color(0xEDC22E);
-            default: return new Color(0x3C3A32); // For tiles beyond 2048
+        if (value == 0) return TILE_COLORS[0];
+        int index = Integer.numberOfTrailingZeros(value);
+        if (Integer.bitCount(value) != 1 || index >= TILE_COLORS.length) return HIGH_TILE_COLOR;
+        return TILE_COLORS[index];
+    }
+
+    /**
+     * Tile geometry for a given panel size: gap, tile size and the offset
+     * that centers the board on the panel.
+     */
+    private static class Layout {
+        final int gap;
+        final int tileSize;
+        final int xOffset;
+        final int yOffset;
+
+        Layout(int panelWidth, int panelHeight) {
+            // Calculate gap and tile size based on panel dimensions
+            gap = Math.max(5, panelWidth / 80);
+            tileSize = (Math.min(panelWidth, panelHeight) - (GRID_SIZE + 1) * gap) / GRID_SIZE;
+
+            int boardWidth = GRID_SIZE * tileSize + (GRID_SIZE + 1) * gap;
+            int boardHeight = GRID_SIZE * tileSize + (GRID_SIZE + 1) * gap;
+
+            // Center the board on the panel
+            xOffset = (panelWidth - boardWidth) / 2;
+            yOffset = (panelHeight - boardHeight) / 2;
         }
+
+        int tileX(int col) { return xOffset + gap + col * (tileSize + gap); }
+        int tileY(int row) { return yOffset + gap + row * (tileSize + gap); }
     }
 }
@@ -0,0 +1,264 @@
+package code;
+
+import java.util.Arrays;
+
+/**
+ * DepthScheduler picks the search depth of each AI move from how dangerous
+ * the position is, so that effort goes to nearly full boards rather than
+ * being spent evenly on every move.
+ *
+ * Danger is a number from 0 to 1 built from three board features:
+ * few empty cells, few legal moves, and many different tile values (which
+ * leave fewer merges). It sets the highest depth a move may search, between
+ * minDepth and maxDepth.
+ *
+ * An optional time budget limits the average search time per move over a
+ * game. The scheduler keeps a running estimate of how long a search takes at
+ * each depth and lowers the depth while the estimate exceeds the time
+ * allowed. Time saved on safe moves is banked, up to BANK_MOVES moves' worth,
+ * and spent on dangerous ones; overspending is paid back on later moves.
+ *
+ * Attach a scheduler with Board.setDepthScheduler(). main() compares it with
+ * fixed depths on seeded games.
+ */
+public class DepthScheduler {
+
+    /** Smallest depth used when none is given; shallower searches play too greedily */
+    public static final int DEFAULT_MIN_DEPTH = 3;
+
+    /** Boards with this many different tile values get full danger from distinct tiles */
+    private static final int CROWDED_DISTINCT_TILES = 10;
+
+    /** Boards with at least this many empty cells get no danger from empty cells */
+    private static final int SAFE_EMPTY_CELLS = 8;
+
+    /** Share of each feature in the danger score: empty cells, legal moves, distinct tiles */
+    private static final double EMPTY_WEIGHT = 0.5;
+    private static final double LEGAL_WEIGHT = 0.25;
+    private static final double DISTINCT_WEIGHT = 0.25;
+
+    /** Weight of the newest search time in the running estimate for its depth */
+    private static final double COST_SMOOTHING = 0.25;
+
+    /** Assumed cost growth per ply for depths that have not been searched yet */
+    private static final double GROWTH_GUESS = 5.0;
+
+    /** Most unspent time kept for later moves, in moves' worth of budget */
+    private static final int BANK_MOVES = 50;
+
+    /** Depth limits */
+    private final int minDepth;
+    private final int maxDepth;
+
+    /** Average search time allowed per move (in nanoseconds; 0 for no limit) */
+    private final long moveBudget;
+
+    /** Running estimate of the search time at each depth (in nanoseconds; 0 if never searched) */
+    private final double[] costEstimate;
+
+    /** Moves and search time of the current game */
+    private long gameMoves = 0;
+    private long gameTime = 0;
+
+    /** Moves searched at each depth since the scheduler was created */
+    private final long[] movesAtDepth;
+
+    /**
+     * Constructor: Creates a scheduler.
+     * @param minDepth Depth of the safest positions (at least 1)
+     * @param maxDepth Depth of the most dangerous positions
+     * @param moveBudget Average search time allowed per move (in nanoseconds; 0 for no limit)
+     */
+    public DepthScheduler(int minDepth, int maxDepth, long moveBudget) {
+        if (minDepth < 1 || maxDepth < minDepth)
+            throw new IllegalArgumentException("Invalid depth range: " + minDepth + ".." + maxDepth);
+        if (moveBudget < 0) throw new IllegalArgumentException("Negative time budget: " + moveBudget);
+        this.minDepth = minDepth;
+        this.maxDepth = maxDepth;
+        this.moveBudget = moveBudget;
+        this.costEstimate = new double[maxDepth + 1];
+        this.movesAtDepth = new long[maxDepth + 1];
+    }
+
+    /**
+     * Resets the time budget for a new game. Cost estimates are kept.
+     * Called by Board.startNewGame().
+     */
+    public synchronized void startGame() {
+        gameMoves = 0;
+        gameTime = 0;
+    }
+
+    /**
+     * Returns how dangerous a position is, from 0 (safe) to 1 (about to be lost).
+     * @param emptyCells Number of empty cells
+     * @param legalMoves Number of legal moves
+     * @param distinctTiles Number of different tile values
+     */
+    public static double danger(int emptyCells, int legalMoves, int distinctTiles) {
+        double empty = Math.max(0, SAFE_EMPTY_CELLS - emptyCells) / (double) SAFE_EMPTY_CELLS;
+        double legal = Math.max(0, 4 - legalMoves) / 3.0;
+        double distinct = Math.min(1.0, distinctTiles / (double) CROWDED_DISTINCT_TILES);
+        return EMPTY_WEIGHT * empty + LEGAL_WEIGHT * Math.min(1.0, legal) + DISTINCT_WEIGHT * distinct;
+    }
+
+    /**
+     * Chooses the depth of the next move on a board.
+     * @param board Board about to be searched
+     * @return Search depth between minDepth and maxDepth
+     */
+    public int chooseDepth(Board board) {
+        return chooseDepth(danger(board.getEmptyCellCount(), board.getLegalMoveCount(),
+                board.getDistinctTileCount()));
+    }
+
+    /**
+     * Chooses the depth of the next move from its danger score.
+     * @param danger Danger from 0 to 1, as returned by danger()
+     * @return Search depth between minDepth and maxDepth
+     */
+    public synchronized int chooseDepth(double danger) {
+        int depth = minDepth + (int) Math.round(danger * (maxDepth - minDepth));
+        depth = Math.max(minDepth, Math.min(maxDepth, depth));
+        if (moveBudget == 0) return depth;
+
+        double bank = Math.min((double) moveBudget * gameMoves - gameTime, (double) moveBudget * BANK_MOVES);
+        double allowed = moveBudget + bank;
+        while (depth > minDepth && estimatedCost(depth) > allowed) depth--;
+        return depth;
+    }
+
+    /**
+     * Records how long a move's search took. Called by Board after every scheduled move.
+     * @param depth Depth searched
+     * @param nanos Search time (in nanoseconds)
+     */
+    public synchronized void recordMove(int depth, long nanos) {
+        gameMoves++;
+        gameTime += nanos;
+        if (depth < costEstimate.length) {
+            movesAtDepth[depth]++;
+            costEstimate[depth] = costEstimate[depth] == 0 ? nanos
+                    : costEstimate[depth] + COST_SMOOTHING * (nanos - costEstimate[depth]);
+        }
+    }
+
+    /**
+     * Returns the estimated search time at a depth. Depths not searched yet
+     * are extrapolated from the nearest searched depth; with no data at all
+     * the estimate is 0, so the first moves search as deep as danger allows.
+     */
+    private double estimatedCost(int depth) {
+        if (costEstimate[depth] > 0) return costEstimate[depth];
+        for (int d = depth - 1; d >= 1; d--) {
+            if (costEstimate[d] > 0) return costEstimate[d] * Math.pow(GROWTH_GUESS, depth - d);
+        }
+        for (int d = depth + 1; d < costEstimate.length; d++) {
+            if (costEstimate[d] > 0) return costEstimate[d] / Math.pow(GROWTH_GUESS, d - depth);
+        }
+        return 0;
+    }
+
+    /** Returns the average search time per move of the current game (in nanoseconds) */
+    public synchronized double getAverageMoveTime() {
+        return gameMoves == 0 ? 0 : (double) gameTime / gameMoves;
+    }
+
+    /** Returns the number of moves searched at each depth, indexed by depth */
+    public synchronized long[] getMovesAtDepth() { return movesAtDepth.clone(); }
+
+    /** Returns the smallest depth used */
+    public int getMinDepth() { return minDepth; }
+
+    /** Returns the largest depth used */
+    public int getMaxDepth() { return maxDepth; }
+
+    /** Returns the average search time allowed per move (in nanoseconds; 0 for no limit) */
+    public long getMoveBudget() { return moveBudget; }
+
+    /** Totals of one benchmark configuration over all its games */
+    private static class Run {
+        int games;
+        long time;
+        long moves;
+        long score;
+        long highest;
+    }
+
+    /**
+     * Plays seeded Alpha-Beta games with each fixed depth from minDepth to
+     * maxDepth and with the scheduler, and prints total game time against
+     * final score for each.
+     * @param args [games] [budget per move in ms] [minDepth] [maxDepth] [comma-separated weights]
+     */
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        double budgetMs = args.length > 1 ? Double.parseDouble(args[1]) : 1.0;
+        int minDepth = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_MIN_DEPTH;
+        int maxDepth = args.length > 3 ? Integer.parseInt(args[3]) : 5;
+        double[] weights = args.length > 4
+                ? Arrays.stream(args[4].split(",")).mapToDouble(Double::parseDouble).toArray()
+                : Board.getDefaultWeights();
+
+        System.out.printf("%d games per configuration, weights %s%n", games, Arrays.toString(weights));
+        System.out.printf("%-24s %14s %10s %10s %10s %12s%n",
+                "Configuration", "game time", "ms/move", "score", "highest", "score/sec");
+
+        play(1, maxDepth, null, weights); // warm up the JIT so the first configuration is not penalized
+
+        for (int depth = minDepth; depth <= maxDepth; depth++) {
+            print("Fixed depth " + depth, play(games, depth, null, weights));
+        }
+
+        DepthScheduler unlimited = new DepthScheduler(minDepth, maxDepth, 0);
+        print("Adaptive, no budget", play(games, maxDepth, unlimited, weights));
+        System.out.println("  moves at depth " + depthHistogram(unlimited));
+
+        DepthScheduler budgeted = new DepthScheduler(minDepth, maxDepth, (long) (budgetMs * 1e6));
+        print(String.format("Adaptive, %.2f ms/move", budgetMs), play(games, maxDepth, budgeted, weights));
+        System.out.println("  moves at depth " + depthHistogram(budgeted));
+    }
+
+    /**
+     * Plays one configuration: seeds 0 to games-1, at a fixed depth or with a scheduler.
+     */
+    private static Run play(int games, int depth, DepthScheduler scheduler, double[] weights) {
+        Run run = new Run();
+        for (int game = 0; game < games; game++) {
+            Board board = new Board((long) game);
+            board.setWeights(weights);
+            board.setSearchDepth(depth);
+            board.setDepthScheduler(scheduler);
+            board.startNewGame();
+
+            long start = System.nanoTime();
+            while (!board.isGameOver()) {
+                if (board.ABprune() == null) break;
+                run.moves++;
+            }
+            run.time += System.nanoTime() - start;
+            run.games++;
+            run.score += board.getScore();
+            run.highest += board.getHighestTile();
+        }
+        return run;
+    }
+
+    private static void print(String name, Run run) {
+        double gameMs = run.time / 1e6 / Math.max(1, run.games);
+        System.out.printf("%-24s %11.1f ms %10.3f %10.0f %10.0f %12.1f%n", name, gameMs,
+                run.time / 1e6 / Math.max(1, run.moves),
+                (double) run.score / run.games, (double) run.highest / run.games,
+                run.score / (run.time / 1e9));
+    }
+
+    private static String depthHistogram(DepthScheduler scheduler) {
+        long[] counts = scheduler.getMovesAtDepth();
+        StringBuilder sb = new StringBuilder();
+        for (int d = scheduler.getMinDepth(); d <= scheduler.getMaxDepth(); d++) {
+            if (sb.length() > 0) sb.append(", ");
+            sb.append(d).append(": ").append(counts[d]);
+        }
+        return sb.toString();
+    }
+}
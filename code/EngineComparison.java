@@ -0,0 +1,267 @@
+package code;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * EngineComparison runs several search engines on the same position at the
+ * same time, each on its own copy of the board, and keeps running totals
+ * of time, nodes and move agreement over a game.
+ *
+ * The first engine is the reference: speedups and node ratios are reported
+ * relative to it, and its move is the one played when advancing a game.
+ * All engines are exact searches of the same tree, so they are expected to
+ * choose the same move on every position.
+ *
+ * Each engine's last root value is carried from one compared position to
+ * the next, as it would be when the engine plays a game itself, so the
+ * ASPIRATION engine gets a window around its previous result instead of
+ * always falling back to a full-window search.
+ *
+ * Search times are the CPU time of the thread running each engine, so
+ * engines waiting for a core while the others run are not charged for it.
+ * If the JVM cannot measure thread CPU time, wall-clock time is used
+ * instead, and summary() says so: with fewer cores than engines those
+ * times include waiting and skew the speedups.
+ */
+public class EngineComparison implements AutoCloseable {
+
+    /** Engines being compared; index 0 is the reference */
+    private final Board.Engine[] engines;
+
+    /** Thread pool with one thread per engine */
+    private final ExecutorService pool;
+
+    /** Source of per-thread CPU time, or null to fall back to wall-clock time */
+    private static final ThreadMXBean THREADS = cpuTimer();
+
+    /** Running totals over all compared positions */
+    private final long[] totalTime;
+    private final long[] totalNodes;
+
+    /** Root value of each engine's last search, handed to its next search (NaN at the start of a game) */
+    private final double[] rootValues;
+    private int positions = 0;
+    private int agreements = 0;
+
+    /**
+     * Result of comparing all engines on a single position.
+     */
+    public static class Result {
+        /** Move chosen by each engine (null if no move was possible) */
+        public final String[] moves;
+        /** Search time of each engine (in nanoseconds of CPU time, or wall-clock time if unavailable) */
+        public final long[] times;
+        /** Search nodes visited by each engine */
+        public final long[] nodes;
+        /** True if every engine chose the reference engine's move */
+        public final boolean agree;
+
+        Result(String[] moves, long[] times, long[] nodes, boolean agree) {
+            this.moves = moves;
+            this.times = times;
+            this.nodes = nodes;
+            this.agree = agree;
+        }
+    }
+
+    /**
+     * Constructor: Creates a comparison of the given engines.
+     * @param engines Engines to compare; the first one is the reference
+     */
+    public EngineComparison(Board.Engine... engines) {
+        if (engines.length == 0) throw new IllegalArgumentException("At least one engine is required");
+        this.engines = engines.clone();
+        this.totalTime = new long[engines.length];
+        this.totalNodes = new long[engines.length];
+        this.rootValues = new double[engines.length];
+        Arrays.fill(rootValues, Double.NaN);
+        this.pool = Executors.newFixedThreadPool(engines.length, runnable -> {
+            Thread thread = new Thread(runnable, "EngineComparison");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Snapshots the board and searches it with every engine in parallel.
+     * The board itself is not changed.
+     * @param board Board holding the position to compare
+     * @return Moves, times and node counts of each engine
+     */
+    public Result compare(Board board) {
+        Board snapshot = new Board(board);
+
+        List<Future<long[]>> futures = new ArrayList<>();
+        String[] moves = new String[engines.length];
+        for (int i = 0; i < engines.length; i++) {
+            final int index = i;
+            futures.add(pool.submit(() -> {
+                Board copy = new Board(snapshot);
+                copy.setLastRootValue(rootValues[index]);
+                long start = now();
+                moves[index] = copy.bestMove(engines[index]);
+                long end = now();
+                rootValues[index] = copy.getLastRootValue(); // read by the next compare() after this task is awaited
+                return new long[]{end - start, copy.getNodeCount()};
+            }));
+        }
+
+        long[] times = new long[engines.length];
+        long[] nodes = new long[engines.length];
+        for (int i = 0; i < engines.length; i++) {
+            long[] stats = await(futures.get(i));
+            times[i] = stats[0];
+            nodes[i] = stats[1];
+        }
+
+        boolean agree = true;
+        for (int i = 1; i < engines.length; i++) {
+            if (moves[i] == null ? moves[0] != null : !moves[i].equals(moves[0])) agree = false;
+        }
+
+        synchronized (this) {
+            for (int i = 0; i < engines.length; i++) {
+                totalTime[i] += times[i];
+                totalNodes[i] += nodes[i];
+            }
+            positions++;
+            if (agree) agreements++;
+        }
+        return new Result(moves, times, nodes, agree);
+    }
+
+    /**
+     * Returns the ThreadMXBean if it can measure the CPU time of the current thread.
+     */
+    private static ThreadMXBean cpuTimer() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!threads.isCurrentThreadCpuTimeSupported()) return null;
+        if (!threads.isThreadCpuTimeEnabled()) threads.setThreadCpuTimeEnabled(true);
+        return threads;
+    }
+
+    /**
+     * Returns the current thread's CPU time, or wall-clock time if it cannot be measured (in nanoseconds).
+     */
+    private static long now() {
+        return THREADS != null ? THREADS.getCurrentThreadCpuTime() : System.nanoTime();
+    }
+
+    /** Returns true if search times are per-thread CPU time rather than wall-clock time */
+    public static boolean measuresCpuTime() { return THREADS != null; }
+
+    /**
+     * Waits for an engine task and unwraps its failure, if any.
+     */
+    private static long[] await(Future<long[]> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while comparing engines", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Engine search failed", e.getCause());
+        }
+    }
+
+    /**
+     * Clears the running totals, e.g. when a new game starts.
+     */
+    public synchronized void reset() {
+        for (int i = 0; i < engines.length; i++) {
+            totalTime[i] = 0;
+            totalNodes[i] = 0;
+            rootValues[i] = Double.NaN;
+        }
+        positions = 0;
+        agreements = 0;
+    }
+
+    /** Returns the engines being compared */
+    public Board.Engine[] getEngines() { return engines.clone(); }
+
+    /** Returns the number of positions compared since the last reset */
+    public synchronized int getPositions() { return positions; }
+
+    /** Returns the fraction of positions on which all engines agreed */
+    public synchronized double getAgreementRate() {
+        return positions == 0 ? 1.0 : (double) agreements / positions;
+    }
+
+    /** Returns the total search time of an engine (in nanoseconds) */
+    public synchronized long getTotalTime(int engine) { return totalTime[engine]; }
+
+    /** Returns the total nodes visited by an engine */
+    public synchronized long getTotalNodes(int engine) { return totalNodes[engine]; }
+
+    /** Returns how many times faster an engine was than the reference engine */
+    public synchronized double getSpeedup(int engine) {
+        return totalTime[engine] == 0 ? 0 : (double) totalTime[0] / totalTime[engine];
+    }
+
+    /** Returns the reference engine's node count divided by this engine's node count */
+    public synchronized double getNodeRatio(int engine) {
+        return totalNodes[engine] == 0 ? 0 : (double) totalNodes[0] / totalNodes[engine];
+    }
+
+    /**
+     * Returns a one-line summary of the totals for every engine.
+     */
+    public synchronized String summary() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%d positions, agreement %.1f%%", positions, getAgreementRate() * 100));
+        if (!measuresCpuTime()) sb.append(" | wall-clock times, skewed when engines share cores");
+        for (int i = 1; i < engines.length; i++) {
+            sb.append(String.format(" | %s vs %s: %.2fx faster, %.2fx fewer nodes",
+                    engines[i].getDisplayName(), engines[0].getDisplayName(), getSpeedup(i), getNodeRatio(i)));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Stops the worker threads.
+     */
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Plays one whole game with the reference engine, comparing all engines
+     * on every position, and prints per-move results and the final summary.
+     * @param args Optional seed for tile generation
+     */
+    public static void main(String[] args) {
+        Board board = args.length > 0 ? new Board(Long.parseLong(args[0])) : new Board();
+        board.startNewGame();
+
+        try (EngineComparison comparison = new EngineComparison(Board.Engine.values())) {
+            int move = 0;
+            while (!board.isGameOver()) {
+                Result result = comparison.compare(board);
+                if (result.moves[0] == null) break;
+
+                StringBuilder line = new StringBuilder("move " + (++move));
+                for (int i = 0; i < result.moves.length; i++) {
+                    line.append(String.format(" | %s %s %.1f ms %d nodes",
+                            comparison.engines[i].getDisplayName(), result.moves[i],
+                            result.times[i] / 1e6, result.nodes[i]));
+                }
+                if (!result.agree) line.append(" | DISAGREE");
+                System.out.println(line);
+
+                board.makeMove(result.moves[0]);
+            }
+            System.out.println(comparison.summary());
+            System.out.println("Final score: " + board.getScore() + ", highest tile: " + board.getHighestTile());
+        }
+    }
+}
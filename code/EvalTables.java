@@ -0,0 +1,189 @@
+package code;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * EvalTables holds the evaluateGrid features of every possible row or column
+ * of four cells, indexed by the 16-bit line taken from a packed board
+ * (four bits per cell, first cell in the highest bits). A board's features
+ * are then the sum of eight lookups, four rows and four columns.
+ *
+ * The tables are built on first use rather than when the program starts,
+ * so launches that never evaluate batches do not pay for them. prewarm()
+ * builds them on a background thread ahead of time. If the eval.tables
+ * system property names a file written by main(), the tables are
+ * memory-mapped from it instead of computed.
+ */
+public final class EvalTables {
+
+    /** Number of distinct 16-bit lines */
+    private static final int LINES = 1 << 16;
+
+    /** Number of per-line tables: sum, empty cells, smoothness, monotonicity, max tile */
+    private static final int TABLES = 5;
+
+    /** File header: magic number and format version */
+    private static final int MAGIC = 0x32303438; // "2048"
+    private static final int VERSION = 1;
+    private static final int HEADER_INTS = 2;
+
+    /** Per-line feature tables */
+    private final IntBuffer sum;
+    private final IntBuffer empty;
+    private final IntBuffer smoothness;
+    private final IntBuffer monotonicity;
+    private final IntBuffer max;
+
+    /** How the tables were obtained, and how long it took (in nanoseconds) */
+    private final String source;
+    private final long loadTime;
+
+    private EvalTables(IntBuffer all, String source, long loadTime) {
+        this.sum = slice(all, 0);
+        this.empty = slice(all, 1);
+        this.smoothness = slice(all, 2);
+        this.monotonicity = slice(all, 3);
+        this.max = slice(all, 4);
+        this.source = source;
+        this.loadTime = loadTime;
+    }
+
+    private static IntBuffer slice(IntBuffer all, int table) {
+        IntBuffer dup = all.duplicate();
+        dup.position(table * LINES).limit((table + 1) * LINES);
+        return dup.slice();
+    }
+
+    /** Holder class: the tables are built the first time get() is called */
+    private static class Holder {
+        static final EvalTables INSTANCE = load();
+    }
+
+    /**
+     * Returns the tables, building or mapping them on first use.
+     */
+    public static EvalTables get() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Starts building the tables on a background thread, so the first
+     * batch evaluation does not wait for them.
+     */
+    public static void prewarm() {
+        Thread thread = new Thread(EvalTables::get, "EvalTables");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Maps the tables from the file named by the eval.tables property if it
+     * exists and is valid, otherwise computes them.
+     */
+    private static EvalTables load() {
+        long start = System.nanoTime();
+        String file = System.getProperty("eval.tables");
+        if (file != null && Files.isRegularFile(Paths.get(file))) {
+            try (FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ)) {
+                ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                IntBuffer ints = mapped.asIntBuffer();
+                if (ints.capacity() == HEADER_INTS + TABLES * LINES
+                        && ints.get(0) == MAGIC && ints.get(1) == VERSION) {
+                    ints.position(HEADER_INTS);
+                    return new EvalTables(ints.slice(), "mapped from " + file, System.nanoTime() - start);
+                }
+                System.err.println("Ignoring invalid eval table file " + file);
+            } catch (IOException e) {
+                System.err.println("Could not map eval table file " + file + ": " + e.getMessage());
+            }
+        }
+        return new EvalTables(IntBuffer.wrap(compute()), "computed", System.nanoTime() - start);
+    }
+
+    /**
+     * Computes every table, laid out one after the other.
+     */
+    private static int[] compute() {
+        int[] all = new int[TABLES * LINES];
+        int[] v = new int[4];
+        for (int line = 0; line < LINES; line++) {
+            int lineSum = 0, lineEmpty = 0, lineMax = 0;
+            for (int k = 0; k < 4; k++) {
+                int exp = (line >>> ((3 - k) * 4)) & 0xF;
+                v[k] = exp == 0 ? 0 : 1 << exp;
+                lineSum += v[k];
+                if (v[k] == 0) lineEmpty++;
+                if (v[k] > lineMax) lineMax = v[k];
+            }
+
+            int lineSmooth = 0, inc = 0, dec = 0;
+            for (int k = 0; k < 3; k++) {
+                int diff = v[k + 1] - v[k];
+                lineSmooth -= Math.abs(diff);
+                if (diff > 0) inc += diff; else dec -= diff;
+            }
+
+            all[line] = lineSum;
+            all[LINES + line] = lineEmpty;
+            all[2 * LINES + line] = lineSmooth;
+            all[3 * LINES + line] = -Math.min(inc, dec);
+            all[4 * LINES + line] = lineMax;
+        }
+        return all;
+    }
+
+    /** Sum of the tiles in a line */
+    public int sum(int line) { return sum.get(line); }
+
+    /** Number of empty cells in a line */
+    public int empty(int line) { return empty.get(line); }
+
+    /** Smoothness of a line: minus the total difference between neighbouring tiles */
+    public int smoothness(int line) { return smoothness.get(line); }
+
+    /** Monotonicity of a line: minus the smaller of its total increase and decrease */
+    public int monotonicity(int line) { return monotonicity.get(line); }
+
+    /** Highest tile in a line */
+    public int max(int line) { return max.get(line); }
+
+    /** Returns how the tables were obtained ("computed" or the mapped file) */
+    public String getSource() { return source; }
+
+    /** Returns how long building or mapping the tables took (in nanoseconds) */
+    public long getLoadTime() { return loadTime; }
+
+    /**
+     * Writes the tables to a file that can be memory-mapped with -Deval.tables=&lt;file&gt;.
+     * @param args &lt;file&gt;
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: java code.EvalTables <file>");
+            System.exit(2);
+        }
+        long start = System.nanoTime();
+        int[] all = compute();
+        long computeTime = System.nanoTime() - start;
+
+        Path path = Paths.get(args[0]);
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            for (int value : all) out.writeInt(value);
+        }
+        System.out.printf("Computed tables in %.2f ms, wrote %s (%d bytes)%n",
+                computeTime / 1e6, path, Files.size(path));
+    }
+}
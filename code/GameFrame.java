@@ -4,6 +4,11 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * GameFrame is the main GUI window for the 2048 AI project.
@@ -28,6 +33,26 @@ public class GameFrame extends JFrame {
     private long totalMinimaxTime = 0;
     private long totalAlphaBetaTime = 0;
 
+    /** Autoplay worker, and the timer that renders its snapshots at a capped frame rate */
+    private AutoPlayer autoPlayer;
+    private Timer renderTimer;
+
+    /** Maximum frames per second drawn while autoplaying */
+    private static final int AUTOPLAY_FPS = 30;
+
+    /** Buttons disabled while autoplay is running, and the autoplay toggle itself */
+    private final List<JButton> moveButtons = new ArrayList<>();
+    private JButton autoplayButton;
+
+    /** Engine used by the "AI Move" button and by autoplay */
+    private JComboBox<Board.Engine> engineBox;
+
+    /** Runs every engine side by side on the same position; totals cover the current game */
+    private final EngineComparison engineComparison = new EngineComparison(Board.Engine.values());
+
+    /** True while a comparison is searching; keyboard moves are ignored until it finishes */
+    private boolean comparing = false;
+
     /** Minimum window dimensions */
     private final int MIN_WIDTH = 1000;
     private final int MIN_HEIGHT = 650;
@@ -37,6 +62,11 @@ public class GameFrame extends JFrame {
      */
     public GameFrame() {
         board = new Board();
+        // At the GUI's default depth the cache cuts search time by more than half (see SearchCache)
+        board.setSearchCacheEnabled(Boolean.parseBoolean(System.getProperty("ai.searchCache", "true")));
+        loadWeights();
+        openGameLog();
+        attachDepthScheduler();
         board.startNewGame();
 
         boardPanel = new BoardPanel(board);
@@ -68,7 +98,8 @@ public class GameFrame extends JFrame {
 
         setTitle("2048 AI Project");
         setSize(700, 750);
-        setMinimumSize(new Dimension(MIN_WIDTH, MIN_HEIGHT));
+        // Never narrower than the controls, so that none of them is clipped
+        setMinimumSize(new Dimension(Math.max(MIN_WIDTH, controlPanel.getPreferredSize().width), MIN_HEIGHT));
         setDefaultCloseOperation(EXIT_ON_CLOSE);
         setLocationRelativeTo(null);
 
@@ -86,6 +117,53 @@ public class GameFrame extends JFrame {
         updateUI();
     }
 
+    /**
+     * Records AI moves to the file named by the game.log system property, if set,
+     * so the games can be analyzed later with ReplayAnalyzer.
+     */
+    private void openGameLog() {
+        String path = System.getProperty("game.log");
+        if (path == null || path.isEmpty()) return;
+        try {
+            board.setGameLog(new GameLog(Paths.get(path)));
+        } catch (IOException e) {
+            System.err.println("Could not open game log " + path + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Plays with the weights named by the ai.weights system property, if set:
+     * a WeightTuner checkpoint file or a comma-separated list of weights.
+     */
+    private void loadWeights() {
+        String source = System.getProperty("ai.weights");
+        if (source == null || source.isEmpty()) return;
+        try {
+            board.setWeights(WeightTuner.loadWeights(source));
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Ignoring ai.weights=" + source + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Lets the AI choose its depth per move, from ai.minDepth (default
+     * DepthScheduler.DEFAULT_MIN_DEPTH) up to the board's search depth, if the
+     * ai.moveBudget system property gives an average time per move in
+     * milliseconds (0 for no time limit).
+     */
+    private void attachDepthScheduler() {
+        String budget = System.getProperty("ai.moveBudget");
+        if (budget == null || budget.isEmpty()) return;
+        try {
+            long nanos = (long) (Double.parseDouble(budget) * 1e6);
+            int minDepth = Integer.getInteger("ai.minDepth", DepthScheduler.DEFAULT_MIN_DEPTH);
+            int maxDepth = Math.max(minDepth, board.getSearchDepth());
+            board.setDepthScheduler(new DepthScheduler(minDepth, maxDepth, nanos));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Ignoring ai.moveBudget=" + budget + ": " + e.getMessage());
+        }
+    }
+
     /**
      * Creates a JLabel with specified text, font size, and bold style.
      * @param text Text to display
@@ -102,16 +180,22 @@ public class GameFrame extends JFrame {
 
     /**
      * Creates the control panel with buttons for new game and AI moves.
+     * The fixed-engine buttons go on the first row and the engine selector,
+     * autoplay and comparison on the second, so that no control is clipped
+     * at the minimum window width.
      * @return JPanel containing buttons
      */
     private JPanel createControlPanel() {
-        JPanel panel = new JPanel();
+        JPanel panel = new JPanel(new GridLayout(2, 1));
+        JPanel moveRow = new JPanel();
+        JPanel engineRow = new JPanel();
 
         JButton newGameButton = new JButton("New Game");
         newGameButton.addActionListener(e -> {
             board.startNewGame();
             totalMinimaxTime = 0;
             totalAlphaBetaTime = 0;
+            engineComparison.reset();
             updateUI();
             requestFocusInWindow();
         });
@@ -136,6 +220,22 @@ public class GameFrame extends JFrame {
             requestFocusInWindow();
         });
 
+        engineBox = new JComboBox<>(Board.Engine.values());
+        engineBox.setSelectedItem(Board.Engine.ALPHA_BETA);
+        engineBox.setFocusable(false); // keep arrow keys for moving tiles
+
+        JButton engineMoveButton = new JButton("AI Move");
+        engineMoveButton.addActionListener(e -> {
+            Board.Engine engine = selectedEngine();
+            long start = System.nanoTime();
+            board.playMove(engine);
+            long end = System.nanoTime();
+            addEngineTime(engine, end - start);
+            updateUI();
+            aiTimingLabel.setText(engine.getDisplayName() + ": " + (end - start) / 1_000_000 + " ms");
+            requestFocusInWindow();
+        });
+
         JButton m10minimaxButton = new JButton("10 Moves (MiniMax)");
         m10minimaxButton.addActionListener(e -> {
             long start = System.nanoTime();
@@ -156,20 +256,179 @@ public class GameFrame extends JFrame {
             requestFocusInWindow();
         });
 
-        panel.add(newGameButton);
-        panel.add(minimaxButton);
-        panel.add(alphaBetaButton);
-        panel.add(m10minimaxButton);
-        panel.add(m10alphaBetaButton);
+        autoplayButton = new JButton("Autoplay");
+        autoplayButton.addActionListener(e -> {
+            if (isAutoplaying()) stopAutoplay();
+            else startAutoplay();
+            requestFocusInWindow();
+        });
+
+        JButton compareButton = new JButton("Compare Engines");
+        compareButton.addActionListener(e -> {
+            compareEngines();
+            requestFocusInWindow();
+        });
+
+        moveButtons.add(newGameButton);
+        moveButtons.add(minimaxButton);
+        moveButtons.add(alphaBetaButton);
+        moveButtons.add(m10minimaxButton);
+        moveButtons.add(m10alphaBetaButton);
+        moveButtons.add(compareButton);
+        moveButtons.add(engineMoveButton);
+
+        moveRow.add(newGameButton);
+        moveRow.add(minimaxButton);
+        moveRow.add(alphaBetaButton);
+        moveRow.add(m10minimaxButton);
+        moveRow.add(m10alphaBetaButton);
+
+        engineRow.add(engineBox);
+        engineRow.add(engineMoveButton);
+        engineRow.add(autoplayButton);
+        engineRow.add(compareButton);
+
+        panel.add(moveRow);
+        panel.add(engineRow);
 
         return panel;
     }
 
+    /**
+     * Searches the current position with every engine in parallel on copies of
+     * the board, then plays the reference (Minimax) move and shows every
+     * engine's time. Runs off the EDT; the controls and keyboard are disabled
+     * until the comparison finishes.
+     */
+    private void compareEngines() {
+        if (board.isGameOver()) return;
+        for (JButton button : moveButtons) button.setEnabled(false);
+        autoplayButton.setEnabled(false);
+        comparing = true;
+        int[][] position = board.snapshotGrid();
+
+        new SwingWorker<EngineComparison.Result, Void>() {
+            @Override
+            protected EngineComparison.Result doInBackground() {
+                return engineComparison.compare(board);
+            }
+
+            @Override
+            protected void done() {
+                for (JButton button : moveButtons) button.setEnabled(true);
+                autoplayButton.setEnabled(true);
+                comparing = false;
+
+                EngineComparison.Result result;
+                try {
+                    result = get();
+                } catch (Exception ex) {
+                    aiTimingLabel.setText("Compare failed: " + ex.getMessage());
+                    return;
+                }
+                // The move was chosen for the compared position; never play it on a different one
+                if (result.moves[0] != null && Arrays.deepEquals(position, board.snapshotGrid())) {
+                    board.makeMove(result.moves[0]);
+                }
+
+                Board.Engine[] engines = engineComparison.getEngines();
+                StringBuilder timing = new StringBuilder();
+                for (int i = 0; i < engines.length; i++) {
+                    addEngineTime(engines[i], result.times[i]);
+                    timing.append(engines[i].getDisplayName()).append(": ")
+                            .append(result.times[i] / 1_000_000).append(" ms | ");
+                }
+                timing.append(result.agree ? "same move" : "DIFFERENT MOVES");
+                updateUI();
+                // The totals are too long for the label at the minimum width
+                aiTimingLabel.setText(timing.toString());
+                aiTimingLabel.setToolTipText(engineComparison.summary());
+            }
+        }.execute();
+    }
+
+    /**
+     * Starts autoplay: the AI moves on a background thread as fast as it can,
+     * while a Swing timer draws the latest snapshot at most AUTOPLAY_FPS times per second.
+     */
+    private void startAutoplay() {
+        if (board.isGameOver()) return;
+
+        for (JButton button : moveButtons) button.setEnabled(false);
+        engineBox.setEnabled(false);
+        autoplayButton.setText("Stop Autoplay");
+        aiTimingLabel.setToolTipText(null);
+
+        autoPlayer = new AutoPlayer(board, selectedEngine());
+        renderTimer = new Timer(1000 / AUTOPLAY_FPS, e -> renderAutoplayFrame());
+        renderTimer.start();
+        autoPlayer.start();
+    }
+
+    /**
+     * Asks the autoplay thread to stop; the render timer finishes up once it has.
+     */
+    private void stopAutoplay() {
+        if (autoPlayer != null) autoPlayer.stop();
+        autoplayButton.setEnabled(false);
+    }
+
+    /** Returns the engine selected for "AI Move" and autoplay */
+    private Board.Engine selectedEngine() {
+        return (Board.Engine) engineBox.getSelectedItem();
+    }
+
+    /**
+     * Adds a selected engine's search time to the Minimax or Alpha-Beta total.
+     * PVS and Aspiration are Alpha-Beta variants, so their time counts as Alpha-Beta time.
+     * @param engine Engine that searched
+     * @param nanos Search time (in nanoseconds)
+     */
+    private void addEngineTime(Board.Engine engine, long nanos) {
+        if (engine == Board.Engine.MINIMAX) totalMinimaxTime += nanos;
+        else totalAlphaBetaTime += nanos;
+    }
+
+    /** Returns true while the autoplay thread or its render timer is active */
+    private boolean isAutoplaying() {
+        return renderTimer != null;
+    }
+
+    /**
+     * Draws one autoplay frame from the latest snapshot. Intermediate
+     * positions produced since the previous frame are never drawn.
+     * When the worker has stopped, restores the normal controls.
+     */
+    private void renderAutoplayFrame() {
+        boolean finished = !autoPlayer.isRunning();
+        int[][] grid = autoPlayer.getLatestGrid();
+
+        boardPanel.showGrid(grid);
+        updateScoreLabels(grid);
+        aiTimingLabel.setText(String.format("Autoplay: %d moves | %.1f moves/sec | %,.0f nodes/sec",
+                autoPlayer.getMovesPlayed(), autoPlayer.getMovesPerSecond(), autoPlayer.getNodesPerSecond()));
+
+        if (finished) {
+            renderTimer.stop();
+            renderTimer = null;
+            addEngineTime(autoPlayer.getEngine(), autoPlayer.getElapsedTime());
+            totalMinimaxTimeLabel.setText("Total Minimax Time: " + totalMinimaxTime / 1_000_000 + " ms");
+            totalAlphaBetaTimeLabel.setText("Total Alpha-Beta Time: " + totalAlphaBetaTime / 1_000_000 + " ms");
+
+            for (JButton button : moveButtons) button.setEnabled(true);
+            engineBox.setEnabled(true);
+            autoplayButton.setText("Autoplay");
+            autoplayButton.setEnabled(true);
+            checkGameOver();
+        }
+    }
+
     /**
      * Handles arrow/WASD key presses to move tiles.
      * @param keyCode Key pressed
      */
     private void handleKeyPress(int keyCode) {
+        if (isAutoplaying() || comparing) return;
         boolean moved = false;
         switch (keyCode) {
             case KeyEvent.VK_W:
@@ -185,7 +444,7 @@ public class GameFrame extends JFrame {
     }
 
     /**
-     * Updates UI labels and repaints the board.
+     * Updates UI labels and repaints the tiles that changed.
      * No specific AI move time.
      */
     private void updateUI() {
@@ -198,17 +457,8 @@ public class GameFrame extends JFrame {
      * @param lastAlphaBeta Duration of last Alpha-Beta move (-1 if none)
      */
     private void updateUI(long lastMinimax, long lastAlphaBeta) {
-        int score = 0;
-        int highest = 0;
-        for (int r = 0; r < 4; r++) {
-            for (int c = 0; c < 4; c++) {
-                int val = board.getValueAt(r, c);
-                score += val;
-                if (val > highest) highest = val;
-            }
-        }
-        scoreLabel.setText("Score: " + score);
-        highestTileLabel.setText("Highest Tile: " + highest);
+        updateScoreLabels(board.snapshotGrid());
+        aiTimingLabel.setToolTipText(null);
 
         if (lastMinimax >= 0) {
             aiTimingLabel.setText("Minimax: " + lastMinimax / 1_000_000 + " ms | Alpha-Beta: 0 ms");
@@ -221,10 +471,28 @@ public class GameFrame extends JFrame {
         totalMinimaxTimeLabel.setText("Total Minimax Time: " + totalMinimaxTime / 1_000_000 + " ms");
         totalAlphaBetaTimeLabel.setText("Total Alpha-Beta Time: " + totalAlphaBetaTime / 1_000_000 + " ms");
 
-        boardPanel.repaint();
+        boardPanel.refreshTiles();
         checkGameOver();
     }
 
+    /**
+     * Updates the score and highest tile labels from a grid snapshot.
+     * @param grid Grid to summarize
+     */
+    private void updateScoreLabels(int[][] grid) {
+        int score = 0;
+        int highest = 0;
+        for (int r = 0; r < 4; r++) {
+            for (int c = 0; c < 4; c++) {
+                int val = grid[r][c];
+                score += val;
+                if (val > highest) highest = val;
+            }
+        }
+        scoreLabel.setText("Score: " + score);
+        highestTileLabel.setText("Highest Tile: " + highest);
+    }
+
     /**
      * Checks if the game is over and displays a message dialog if so.
      */
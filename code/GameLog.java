@@ -0,0 +1,126 @@
+package code;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * GameLog appends AI games to a text file, one line per event:
+ * <pre>
+ * game weights=w1,w2,w3,w4,w5
+ * move &lt;packed board, hex&gt; &lt;engine&gt; &lt;depth&gt; &lt;direction&gt; &lt;search time in ns&gt;
+ * end &lt;score&gt; &lt;highest tile&gt;
+ * </pre>
+ * The board on a move line is the position before the move, packed as by
+ * SearchCache.pack, or "-" if it holds a tile above 32768, which does not
+ * fit in four bits per cell. Lines are flushed as they are written, so a log stays
+ * readable if the program is killed mid-game.
+ *
+ * Usage: java code.GameLog &lt;file&gt; [games] [depth] [w1,w2,w3,w4,w5]
+ * records seeded Alpha-Beta games without the GUI.
+ */
+public class GameLog implements Closeable {
+
+    /** Output file */
+    private final BufferedWriter writer;
+
+    /**
+     * Constructor: Opens a log for appending, creating it if needed.
+     * @param path Log file
+     */
+    public GameLog(Path path) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Records the start of a game.
+     * @param weights Evaluation weights the game is played with
+     */
+    public synchronized void startGame(double[] weights) {
+        StringBuilder sb = new StringBuilder("game weights=");
+        for (int i = 0; i < weights.length; i++) {
+            if (i > 0) sb.append(',');
+            sb.append(weights[i]);
+        }
+        writeLine(sb.toString());
+    }
+
+    /**
+     * Records one AI move.
+     * @param packed Board before the move, packed (SearchCache.NO_KEY if it cannot be packed)
+     * @param engine Engine that chose the move
+     * @param depth Search depth
+     * @param dir Direction played ("W", "A", "S", "D")
+     * @param nanos Search time (in nanoseconds)
+     */
+    public synchronized void recordMove(long packed, Board.Engine engine, int depth, String dir, long nanos) {
+        String board = packed == SearchCache.NO_KEY ? "-" : Long.toHexString(packed);
+        writeLine("move " + board + " " + engine.name() + " " + depth + " " + dir + " " + nanos);
+    }
+
+    /**
+     * Records the end of a game.
+     * @param score Final score
+     * @param highest Highest tile
+     */
+    public synchronized void endGame(int score, int highest) {
+        writeLine("end " + score + " " + highest);
+    }
+
+    private void writeLine(String line) {
+        try {
+            writer.write(line);
+            writer.newLine();
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write game log", e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        writer.close();
+    }
+
+    /**
+     * Plays seeded Alpha-Beta games and appends them to a log.
+     * @param args &lt;file&gt; [games] [depth] [comma-separated weights]
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: java code.GameLog <file> [games] [depth] [w1,w2,w3,w4,w5]");
+            System.exit(2);
+        }
+        Path path = Paths.get(args[0]);
+        int games = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        int depth = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+        double[] weights = Board.getDefaultWeights();
+        if (args.length > 3) {
+            String[] parts = args[3].split(",");
+            for (int i = 0; i < weights.length && i < parts.length; i++) weights[i] = Double.parseDouble(parts[i]);
+        }
+
+        try (GameLog log = new GameLog(path)) {
+            for (int game = 0; game < games; game++) {
+                Board board = new Board((long) game);
+                board.setSearchDepth(depth);
+                board.setWeights(weights);
+                board.setGameLog(log);
+                board.startNewGame();
+                while (!board.isGameOver()) {
+                    if (board.ABprune() == null) break;
+                }
+            }
+        }
+        System.out.println("Recorded " + games + " games to " + path);
+    }
+}
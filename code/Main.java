@@ -1,20 +1,81 @@
 package code;
 
+import java.util.Arrays;
+
 /**
  * Main class: Entry point for the 2048 AI project.
- * It launches the GameFrame GUI on the Swing Event Dispatch Thread.
+ * Without arguments it launches the GameFrame GUI on the Swing Event Dispatch Thread.
+ * With a tool name as the first argument it runs that tool headless instead,
+ * without loading any Swing classes:
+ * <pre>
+ * java code.Main compare [seed]            EngineComparison
+ * java code.Main benchmark [...]           SearchBenchmark
+ * java code.Main tune [...]                WeightTuner
+ * java code.Main record &lt;file&gt; [...]      GameLog
+ * java code.Main analyze &lt;log&gt; &lt;out&gt; [...] ReplayAnalyzer
+ * java code.Main batch-eval [...]          BatchEvaluator
+ * java code.Main eval-tables &lt;file&gt;       EvalTables
+ * java code.Main schedule [...]            DepthScheduler
+ * java code.Main startup                   exits immediately (for measuring startup)
+ * </pre>
+ * With -Dstartup.report=true, the time from JVM start until the tool or
+ * window is ready is printed to standard error.
  */
 public class Main {
 
     /**
-     * Main method: Launches the game GUI in a thread-safe way using SwingUtilities.invokeLater.
-     * @param args Command-line arguments (not used)
+     * Main method: Launches the game GUI in a thread-safe way using SwingUtilities.invokeLater,
+     * or runs a headless tool.
+     * @param args Optional tool name followed by the tool's arguments
      */
-    public static void main(String[] args) {
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0) {
+            runTool(args[0], Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+
         javax.swing.SwingUtilities.invokeLater(() -> {
             // Create and display the game frame
             GameFrame frame = new GameFrame();
             frame.setVisible(true);
+            reportStartup("window shown");
         });
     }
+
+    /**
+     * Runs a headless tool by name.
+     * @param tool Tool name
+     * @param args Arguments passed on to the tool
+     */
+    private static void runTool(String tool, String[] args) throws Exception {
+        reportStartup(tool + " started");
+        switch (tool) {
+            case "compare": EngineComparison.main(args); break;
+            case "benchmark": SearchBenchmark.main(args); break;
+            case "tune": WeightTuner.main(args); break;
+            case "record": GameLog.main(args); break;
+            case "analyze": ReplayAnalyzer.main(args); break;
+            case "batch-eval": BatchEvaluator.main(args); break;
+            case "eval-tables": EvalTables.main(args); break;
+            case "schedule": DepthScheduler.main(args); break;
+            case "startup": break;
+            default:
+                System.err.println("Unknown tool: " + tool);
+                System.err.println("Tools: compare, benchmark, tune, record, analyze, batch-eval, eval-tables, schedule, startup");
+                System.exit(2);
+        }
+    }
+
+    /**
+     * Prints the time since the JVM started, if -Dstartup.report=true.
+     * The management classes needed to find the JVM start time are only
+     * loaded after the time is taken, so reporting does not inflate it.
+     * @param phase What has just become ready
+     */
+    private static void reportStartup(String phase) {
+        if (!Boolean.getBoolean("startup.report")) return;
+        long now = System.currentTimeMillis();
+        long jvmStart = java.lang.management.ManagementFactory.getRuntimeMXBean().getStartTime();
+        System.err.println("Startup: " + (now - jvmStart) + " ms from JVM start to " + phase);
+    }
 }
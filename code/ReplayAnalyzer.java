@@ -0,0 +1,264 @@
+package code;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * ReplayAnalyzer re-searches every recorded move of a GameLog at a higher
+ * depth and reports moves that lost significant value and moves whose
+ * search took much longer than usual.
+ *
+ * The log is streamed line by line and positions are searched on a thread
+ * pool, with only a bounded number in flight, so archives of any size can
+ * be processed in constant memory. Results are written in log order, one
+ * line per move, and flushed as they are written. Running again with the
+ * same output file skips the moves already analyzed.
+ *
+ * Output line: {@code <game> <move> <engine> <depth> played=<dir> best=<dir> loss=<value> time=<ms> [BLUNDER] [SLOW]}
+ * Moves logged without a board ("-", for boards with tiles above 32768)
+ * cannot be searched again and are skipped; they produce no output line.
+ *
+ * Usage: java code.ReplayAnalyzer &lt;log&gt; &lt;output&gt; [extraDepth] [threads]
+ */
+public class ReplayAnalyzer {
+
+    /** Extra plies searched beyond the depth each move was played at */
+    private static final int DEFAULT_EXTRA_DEPTH = 2;
+
+    /** A move is a blunder if it loses more than this fraction of the best move's value... */
+    private static final double BLUNDER_FRACTION = 0.01;
+
+    /** ...and more than this absolute amount */
+    private static final double BLUNDER_MIN_LOSS = 1.0;
+
+    /** A move is slow if it took this many times the average of its engine and depth so far */
+    private static final double SLOW_FACTOR = 3.0;
+
+    /** Moves of an engine and depth seen before slow moves are flagged */
+    private static final int SLOW_WARMUP = 20;
+
+    /** Directions in the order Board.evaluateMoves() reports them */
+    private static final String[] MOVES = {"W", "A", "S", "D"};
+
+    /** Analysis settings */
+    private final int extraDepth;
+    private final int threads;
+
+    /** Running average search time per engine and depth, in log order */
+    private final Map<Board.Engine, Map<Integer, long[]>> timing = new EnumMap<>(Board.Engine.class);
+
+    /** Totals for the final summary */
+    private long analyzed = 0;
+    private long blunders = 0;
+    private long slowMoves = 0;
+    private long unrecorded = 0;
+
+    /**
+     * Constructor: Creates an analyzer.
+     * @param extraDepth Plies added to each move's recorded depth
+     * @param threads Number of search threads
+     */
+    public ReplayAnalyzer(int extraDepth, int threads) {
+        this.extraDepth = extraDepth;
+        this.threads = threads;
+    }
+
+    /**
+     * Analyzes a log, appending to the output file and skipping moves it already contains.
+     * @param log Game log to read
+     * @param output Results file
+     */
+    public void analyze(Path log, Path output) throws IOException, InterruptedException {
+        long done = completedLines(output);
+        if (done > 0) System.out.println("Resuming after " + done + " analyzed moves");
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        ArrayDeque<Future<String>> pending = new ArrayDeque<>();
+        int maxPending = threads * 4;
+
+        try (BufferedReader reader = Files.newBufferedReader(log, StandardCharsets.UTF_8);
+             BufferedWriter writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8,
+                     StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            double[] weights = Board.getDefaultWeights();
+            long game = 0;
+            long moveInGame = 0;
+            long moveIndex = 0;
+
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.trim().split(" ");
+                if (parts[0].equals("game")) {
+                    weights = parseWeights(parts);
+                    game++;
+                    moveInGame = 0;
+                    continue;
+                }
+                if (!parts[0].equals("move") || parts.length < 6) continue;
+
+                moveInGame++;
+                Board.Engine engine = Board.Engine.valueOf(parts[2]);
+                int depth = Integer.parseInt(parts[3]);
+                long nanos = Long.parseLong(parts[5]);
+
+                // Timing is tracked for skipped moves too, so resumed runs flag the same moves
+                boolean slow = recordTiming(engine, depth, nanos);
+                if (parts[1].equals("-")) {
+                    unrecorded++;
+                    continue;
+                }
+                if (moveIndex++ < done) continue;
+
+                long packed = Long.parseUnsignedLong(parts[1], 16);
+                String prefix = game + " " + moveInGame + " " + engine.name() + " " + depth;
+                String played = parts[4];
+                double[] moveWeights = weights;
+                pending.add(pool.submit(() -> analyzeMove(packed, depth + extraDepth, moveWeights,
+                        played, nanos, slow, prefix)));
+
+                while (pending.size() >= maxPending) writeResult(writer, pending.poll());
+            }
+            while (!pending.isEmpty()) writeResult(writer, pending.poll());
+        } finally {
+            pool.shutdownNow();
+        }
+
+        System.out.printf("Analyzed %d moves: %d blunders, %d slow moves%n", analyzed, blunders, slowMoves);
+        if (unrecorded > 0) System.out.println("Skipped " + unrecorded + " moves logged without a board");
+    }
+
+    /**
+     * Re-searches one position and formats its result line.
+     */
+    private String analyzeMove(long packed, int depth, double[] weights, String played,
+                               long nanos, boolean slow, String prefix) {
+        Board board = new Board(BatchEvaluator.unpack(packed));
+        board.setWeights(weights);
+        board.setSearchDepth(depth);
+        double[] values = board.evaluateMoves();
+
+        int best = -1;
+        int playedIndex = -1;
+        for (int i = 0; i < MOVES.length; i++) {
+            if (MOVES[i].equals(played)) playedIndex = i;
+            if (!Double.isNaN(values[i]) && (best < 0 || values[i] > values[best])) best = i;
+        }
+
+        double loss = 0;
+        if (best >= 0 && playedIndex >= 0 && !Double.isNaN(values[playedIndex])) {
+            loss = values[best] - values[playedIndex];
+        }
+        boolean blunder = best >= 0 && loss > BLUNDER_MIN_LOSS
+                && loss > Math.abs(values[best]) * BLUNDER_FRACTION;
+
+        return String.format("%s played=%s best=%s loss=%.3f time=%.3f%s%s", prefix, played,
+                best < 0 ? "-" : MOVES[best], loss, nanos / 1e6,
+                blunder ? " BLUNDER" : "", slow ? " SLOW" : "");
+    }
+
+    /**
+     * Waits for a result and appends it to the output.
+     */
+    private void writeResult(BufferedWriter writer, Future<String> future) throws IOException, InterruptedException {
+        String result;
+        try {
+            result = future.get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Analysis failed", e.getCause());
+        }
+        writer.write(result);
+        writer.newLine();
+        writer.flush();
+
+        analyzed++;
+        if (result.contains(" BLUNDER")) blunders++;
+        if (result.endsWith(" SLOW")) slowMoves++;
+    }
+
+    /**
+     * Adds a move's search time to the running average of its engine and depth.
+     * @return True if the move took more than SLOW_FACTOR times the average so far
+     */
+    private boolean recordTiming(Board.Engine engine, int depth, long nanos) {
+        long[] stats = timing.computeIfAbsent(engine, e -> new HashMap<>())
+                .computeIfAbsent(depth, d -> new long[2]); // {count, total nanos}
+        boolean slow = stats[0] >= SLOW_WARMUP && nanos > SLOW_FACTOR * stats[1] / stats[0];
+        stats[0]++;
+        stats[1] += nanos;
+        return slow;
+    }
+
+    /**
+     * Returns the weights on a "game" line, or the default weights if it has none.
+     */
+    private static double[] parseWeights(String[] parts) {
+        for (String part : parts) {
+            if (part.startsWith("weights=")) {
+                String[] values = part.substring("weights=".length()).split(",");
+                double[] weights = new double[values.length];
+                for (int i = 0; i < values.length; i++) weights[i] = Double.parseDouble(values[i]);
+                return weights;
+            }
+        }
+        return Board.getDefaultWeights();
+    }
+
+    /**
+     * Counts the complete lines of an earlier output file, cutting off a line
+     * left half-written by an interrupted run.
+     */
+    private static long completedLines(Path output) throws IOException {
+        if (!Files.exists(output)) return 0;
+
+        long lines = 0;
+        long lastNewline = -1;
+        long position = 0;
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(output))) {
+            int b;
+            while ((b = in.read()) != -1) {
+                if (b == '\n') {
+                    lines++;
+                    lastNewline = position;
+                }
+                position++;
+            }
+        }
+        if (lastNewline + 1 < position) {
+            try (FileChannel channel = FileChannel.open(output, StandardOpenOption.WRITE)) {
+                channel.truncate(lastNewline + 1);
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Runs the analyzer from the command line.
+     * @param args &lt;log&gt; &lt;output&gt; [extraDepth] [threads]
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 2) {
+            System.err.println("Usage: java code.ReplayAnalyzer <log> <output> [extraDepth] [threads]");
+            System.exit(2);
+        }
+        int extraDepth = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_EXTRA_DEPTH;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+        new ReplayAnalyzer(extraDepth, threads).analyze(Paths.get(args[0]), Paths.get(args[1]));
+    }
+}
@@ -0,0 +1,124 @@
+package code;
+
+import java.util.Arrays;
+
+/**
+ * SearchBenchmark measures node counts and wall time of the search engines
+ * on a fixed corpus of positions.
+ *
+ * The corpus is the first N moves of a fixed set of seeded games. Each engine
+ * replays every game itself, so engines that carry state from one move to the
+ * next (aspiration windows) see the positions in their natural order. All
+ * engines are exact, so they play identical games; the benchmark stops with
+ * an error if an engine plays a different move from the reference.
+ *
+ * Every engine is measured with and without the cross-move search cache;
+ * the reference is Alpha-Beta without the cache. Each configuration is run
+ * REPEATS times and the fastest wall time is reported, since a single run
+ * is easily distorted by the JIT or by other work on the machine.
+ *
+ * With the default weights every move from a position has almost the same
+ * value, so there is little to prune; pass tuned weights to see the
+ * difference between engines.
+ *
+ * Usage: java code.SearchBenchmark [games] [movesPerGame] [depth] [w1,w2,w3,w4,w5]
+ */
+public class SearchBenchmark {
+
+    /** Default corpus size and search depth */
+    private static final int DEFAULT_GAMES = 10;
+    private static final int DEFAULT_MOVES = 60;
+    private static final int DEFAULT_DEPTH = 5;
+
+    /** Runs of each configuration; the fastest is reported */
+    private static final int REPEATS = 5;
+
+    /** Seed of the first corpus game; game i uses CORPUS_SEED + i */
+    private static final long CORPUS_SEED = 331L;
+
+    /** Engines compared; the first one is the reference */
+    private static final Board.Engine[] ENGINES = {
+            Board.Engine.ALPHA_BETA, Board.Engine.PVS, Board.Engine.ASPIRATION
+    };
+
+    /**
+     * Runs the benchmark and prints one line per engine.
+     * @param args [games] [movesPerGame] [depth] [comma-separated weights]
+     */
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_GAMES;
+        int moves = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_MOVES;
+        int depth = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_DEPTH;
+        double[] weights = args.length > 3
+                ? Arrays.stream(args[3].split(",")).mapToDouble(Double::parseDouble).toArray()
+                : Board.getDefaultWeights();
+
+        // Warm up the JIT so the first engine measured is not penalized
+        for (Board.Engine engine : ENGINES) {
+            play(engine, false, Math.min(games, 3), moves, depth, weights);
+            play(engine, true, Math.min(games, 3), moves, depth, weights);
+        }
+
+        String[][] referenceMoves = null;
+        long referenceNodes = 0;
+        long referenceTime = 0;
+
+        System.out.printf("Corpus: %d games x %d moves, depth %d, weights %s%n",
+                games, moves, depth, Arrays.toString(weights));
+        for (boolean cached : new boolean[]{false, true}) {
+            for (Board.Engine engine : ENGINES) {
+                Run run = null;
+                long time = Long.MAX_VALUE;
+                for (int repeat = 0; repeat < REPEATS; repeat++) {
+                    long start = System.nanoTime();
+                    run = play(engine, cached, games, moves, depth, weights);
+                    time = Math.min(time, System.nanoTime() - start);
+                }
+                String name = engine.getDisplayName() + (cached ? " +cache" : "");
+
+                if (referenceMoves == null) {
+                    referenceMoves = run.moves;
+                    referenceNodes = run.nodes;
+                    referenceTime = time;
+                } else if (!Arrays.deepEquals(referenceMoves, run.moves)) {
+                    throw new IllegalStateException(name + " chose different moves from "
+                            + ENGINES[0].getDisplayName());
+                }
+
+                System.out.printf("%-18s %,15d nodes (%5.1f%%) %10.1f ms (%5.1f%%)%n",
+                        name, run.nodes, 100.0 * run.nodes / referenceNodes,
+                        time / 1e6, 100.0 * time / referenceTime);
+            }
+        }
+    }
+
+    /** Moves played and nodes searched by one engine over the corpus */
+    private static class Run {
+        final String[][] moves;
+        long nodes = 0;
+
+        Run(int games, int moves) { this.moves = new String[games][moves]; }
+    }
+
+    /**
+     * Plays the corpus games with one engine, with or without the search cache.
+     */
+    private static Run play(Board.Engine engine, boolean cached, int games, int moves, int depth, double[] weights) {
+        Run run = new Run(games, moves);
+        for (int game = 0; game < games; game++) {
+            Board board = new Board(CORPUS_SEED + game);
+            board.setSearchDepth(depth);
+            board.setWeights(weights);
+            board.setSearchCacheEnabled(cached);
+            board.startNewGame();
+            for (int move = 0; move < moves && !board.isGameOver(); move++) {
+                String dir = board.bestMove(engine);
+                if (dir == null) break;
+                run.moves[game][move] = dir;
+                board.makeMove(dir);
+            }
+            run.nodes += board.getNodeCount();
+        }
+        return run;
+    }
+}
@@ -0,0 +1,223 @@
+package code;
+
+import java.util.Arrays;
+
+/**
+ * SearchCache is a fixed-size transposition table that keeps search results
+ * from one AI move to the next within a game.
+ *
+ * Each entry stores, for one grid and side to move, the searched depth, the
+ * value with whether it is exact or only a bound, and the index of the best
+ * child. Values are only reused at the same remaining depth, so a cached
+ * search returns exactly what an uncached one would. Best-child hints are
+ * used at any depth to search the most promising child first; following
+ * them from the root gives the principal variation of the previous search.
+ *
+ * After a move and a tile spawn, every position is searched 2 plies deeper
+ * than in the previous search, so values from earlier moves never match;
+ * only their hints carry over. The savings come from transpositions within
+ * one search. Whether that pays for the lookups depends on depth: with
+ * SearchBenchmark at depth 7 the cache cut wall time to 20-40%, but at
+ * depth 5 with the default weights (where evaluation is cheap) it doubled it.
+ *
+ * Memory is fixed when the cache is created. Each root search starts a new
+ * generation, and entries more than MAX_AGE generations old are treated as
+ * free slots, so results from long-gone positions are replaced first.
+ */
+public class SearchCache {
+
+    /** Bound types of a cached value */
+    public static final int EXACT = 0;
+    public static final int LOWER = 1; // true value is at least the cached value
+    public static final int UPPER = 2; // true value is at most the cached value
+
+    /** Returned by pack() for grids that cannot be cached */
+    public static final long NO_KEY = -1L;
+
+    /** Default memory limit (in bytes) */
+    public static final long DEFAULT_MAX_BYTES = 32L * 1024 * 1024;
+
+    /** Bytes used by one entry across all arrays */
+    private static final int BYTES_PER_ENTRY = 8 + 8 + 1 + 1 + 1 + 1;
+
+    /** Number of root searches after which an entry counts as stale */
+    private static final int MAX_AGE = 8;
+
+    /** Flag bit for entries of maximizing (player) nodes */
+    private static final int SIDE_BIT = 4;
+
+    /** Entry storage, one slot per index */
+    private final long[] keys;
+    private final double[] values;
+    private final byte[] depths;
+    private final byte[] flags;   // bound type, plus SIDE_BIT; 0 depth means empty
+    private final byte[] hints;   // best child index + 1 (0 = none)
+    private final byte[] ages;
+
+    /** Mask and shift for mapping a hash to a slot */
+    private final int mask;
+    private final int shift;
+
+    /** Current generation, advanced by newSearch() */
+    private int generation = 0;
+
+    /**
+     * Constructor: Creates a cache that uses at most maxBytes of memory.
+     * @param maxBytes Memory limit (in bytes)
+     */
+    public SearchCache(long maxBytes) {
+        long entries = Long.highestOneBit(Math.max(2, maxBytes / BYTES_PER_ENTRY));
+        if (entries > (1 << 30)) entries = 1 << 30;
+        int capacity = (int) entries;
+
+        keys = new long[capacity];
+        values = new double[capacity];
+        depths = new byte[capacity];
+        flags = new byte[capacity];
+        hints = new byte[capacity];
+        ages = new byte[capacity];
+        mask = capacity - 1;
+        shift = 64 - Integer.numberOfTrailingZeros(capacity);
+    }
+
+    /**
+     * Packs a 4x4 grid into a key, four bits per cell holding log2 of the tile.
+     * @param g Grid to pack
+     * @return Packed key, or NO_KEY if a tile is too large to fit in four bits
+     */
+    public static long pack(int[][] g) {
+        long key = 0;
+        for (int i = 0; i < 4; i++) {
+            for (int j = 0; j < 4; j++) {
+                int v = g[i][j];
+                int exp = v == 0 ? 0 : Integer.numberOfTrailingZeros(v);
+                // 15 in every cell would be all 32768 tiles, which cannot happen, so NO_KEY is never a real grid
+                if (exp > 15) return NO_KEY;
+                key = (key << 4) | exp;
+            }
+        }
+        return key;
+    }
+
+    /**
+     * Starts a new root search, aging every existing entry by one generation.
+     */
+    public void newSearch() {
+        generation = (generation + 1) & 0xFF;
+    }
+
+    /**
+     * Empties the cache, e.g. when a new game starts.
+     */
+    public void clear() {
+        Arrays.fill(depths, (byte) 0);
+        Arrays.fill(keys, 0L);
+        generation = 0;
+    }
+
+    /**
+     * Looks up a grid.
+     * @param key Packed grid (not NO_KEY)
+     * @param maximizing True for player nodes, false for tile-spawn nodes
+     * @return Slot of the entry, or -1 if it is not cached
+     */
+    public int probe(long key, boolean maximizing) {
+        int slot = index(key, maximizing);
+        if (matches(slot, key, maximizing)) return slot;
+        if (matches(slot ^ 1, key, maximizing)) return slot ^ 1;
+        return -1;
+    }
+
+    /**
+     * Returns the cached value if it decides the node for the window (alpha, beta)
+     * at this depth, or NaN if the node has to be searched.
+     * @param slot Slot returned by probe()
+     * @param depth Remaining search depth
+     * @param alpha Alpha value of the node
+     * @param beta Beta value of the node
+     * @return Cached value or NaN
+     */
+    public double cutoff(int slot, int depth, double alpha, double beta) {
+        if (depths[slot] != depth) return Double.NaN;
+        double value = values[slot];
+        int bound = flags[slot] & 3;
+        if (bound == EXACT) return value;
+        if (bound == LOWER && value >= beta) return value;
+        if (bound == UPPER && value <= alpha) return value;
+        return Double.NaN;
+    }
+
+    /**
+     * Returns the index of the best child recorded for an entry, or -1 if none.
+     * @param slot Slot returned by probe()
+     */
+    public int hint(int slot) {
+        return hints[slot] - 1;
+    }
+
+    /**
+     * Stores a search result. The bound type is derived from the window the
+     * node was searched with.
+     * @param key Packed grid (NO_KEY is ignored)
+     * @param maximizing True for player nodes, false for tile-spawn nodes
+     * @param depth Remaining search depth
+     * @param value Value returned by the search
+     * @param alpha Alpha value the node was entered with
+     * @param beta Beta value the node was entered with
+     * @param bestChild Index of the best child, or -1 if none
+     */
+    public void store(long key, boolean maximizing, int depth, double value, double alpha, double beta, int bestChild) {
+        if (key == NO_KEY || depth <= 0 || depth > Byte.MAX_VALUE) return;
+
+        int bound = value <= alpha ? UPPER : value >= beta ? LOWER : EXACT;
+        int slot = index(key, maximizing);
+        int other = slot ^ 1;
+        if (!matches(slot, key, maximizing)) {
+            if (matches(other, key, maximizing) || worseEntry(other, slot)) slot = other;
+        }
+
+        keys[slot] = key;
+        values[slot] = value;
+        depths[slot] = (byte) depth;
+        flags[slot] = (byte) (bound | (maximizing ? SIDE_BIT : 0));
+        hints[slot] = (byte) (bestChild + 1);
+        ages[slot] = (byte) generation;
+    }
+
+    /**
+     * Returns true if slot a is a better slot to overwrite than slot b:
+     * empty or stale first, then the older entry, then the shallower one.
+     */
+    private boolean worseEntry(int a, int b) {
+        boolean freeA = isFree(a), freeB = isFree(b);
+        if (freeA != freeB) return freeA;
+        int ageA = age(a), ageB = age(b);
+        if (ageA != ageB) return ageA > ageB;
+        return depths[a] < depths[b];
+    }
+
+    /** Returns true if a slot is empty or stale */
+    private boolean isFree(int slot) {
+        return depths[slot] == 0 || age(slot) > MAX_AGE;
+    }
+
+    /** Returns how many generations ago a slot was written */
+    private int age(int slot) {
+        return (generation - ages[slot]) & 0xFF;
+    }
+
+    /** Returns true if a slot holds a live entry for this grid and side */
+    private boolean matches(int slot, long key, boolean maximizing) {
+        return keys[slot] == key && !isFree(slot)
+                && ((flags[slot] & SIDE_BIT) != 0) == maximizing;
+    }
+
+    /** Maps a key and side to the first slot of its two-slot bucket */
+    private int index(long key, boolean maximizing) {
+        long h = (key ^ (maximizing ? 0x5DEECE66DL : 0L)) * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> shift) & mask & ~1;
+    }
+
+    /** Returns the number of slots */
+    public int capacity() { return keys.length; }
+}
@@ -0,0 +1,383 @@
+package code;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * WeightTuner is a headless tuner for the evaluateGrid weights, using SPSA
+ * (simultaneous perturbation stochastic approximation).
+ *
+ * Each iteration perturbs the current weights in a random direction, plays
+ * a batch of self-play games with both perturbed weight vectors on the same
+ * tile-spawn seeds, and steps along the estimated gradient of the mean final
+ * score. The updated weights are then raced against the best weights found so
+ * far on a fixed validation seed set, in batches; a candidate that is clearly
+ * worse after any batch is dropped without playing the rest. A candidate only
+ * replaces the best weights if it is better by ACCEPT_SIGMAS standard errors,
+ * because the same seeds are reused every iteration and accepting any
+ * positive difference would keep ratcheting up on noise.
+ *
+ * The best weights are saved in the checkpoint as bestWeights; the GUI and
+ * other tools load them with -Dai.weights=&lt;checkpoint file&gt; (see loadWeights).
+ *
+ * Games are spread over all cores. Progress is written to a checkpoint file
+ * after every iteration, and a run started with an existing checkpoint
+ * continues where the previous one stopped.
+ *
+ * Usage: java code.WeightTuner [iterations] [depth] [gamesPerBatch] [checkpointFile]
+ */
+public class WeightTuner implements AutoCloseable {
+
+    /** Default number of SPSA iterations */
+    private static final int DEFAULT_ITERATIONS = 200;
+
+    /** Default search depth for self-play games (kept low so games are fast) */
+    private static final int DEFAULT_DEPTH = 3;
+
+    /** Default number of games per batch */
+    private static final int DEFAULT_GAMES_PER_BATCH = 32;
+
+    /** Default checkpoint location */
+    private static final String DEFAULT_CHECKPOINT = "data/tuner_checkpoint.properties";
+
+    /** Number of validation batches a candidate must survive to replace the best weights */
+    private static final int VALIDATION_BATCHES = 4;
+
+    /** Standard errors below the best weights at which a candidate counts as clearly worse */
+    private static final double EARLY_STOP_SIGMAS = 2.0;
+
+    /** Standard errors above the best weights a candidate needs to replace them */
+    private static final double ACCEPT_SIGMAS = 2.0;
+
+    /** SPSA gain constants (standard exponents from Spall) */
+    private static final double STEP_SIZE = 0.5;
+    private static final double PERTURBATION = 0.2;
+    private static final double STABILITY = 10.0;
+    private static final double STEP_DECAY = 0.602;
+    private static final double PERTURBATION_DECAY = 0.101;
+
+    /** Base seed for validation games, perturbation directions and training games */
+    private static final long BASE_SEED = 2048L;
+
+    /** Tuning settings */
+    private final int depth;
+    private final int gamesPerBatch;
+    private final Path checkpoint;
+
+    /** Pool playing games on every core */
+    private final ExecutorService pool;
+
+    /** Tuning state, saved in the checkpoint */
+    private int iteration = 0;
+    private double[] theta = Board.getDefaultWeights();
+    private double[] bestWeights = Board.getDefaultWeights();
+    private int[] bestScores = null;
+
+    /**
+     * Constructor: Creates a tuner.
+     * @param depth Search depth of self-play games
+     * @param gamesPerBatch Number of games per batch
+     * @param checkpoint Checkpoint file to resume from and save to
+     */
+    public WeightTuner(int depth, int gamesPerBatch, Path checkpoint) {
+        this.depth = depth;
+        this.gamesPerBatch = gamesPerBatch;
+        this.checkpoint = checkpoint;
+        this.pool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+            Thread thread = new Thread(runnable, "WeightTuner");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Runs SPSA until the given total number of iterations has been reached.
+     * @param iterations Total iterations, including any done before a resume
+     */
+    public void run(int iterations) throws IOException {
+        if (Files.exists(checkpoint)) {
+            loadCheckpoint();
+            System.out.println("Resumed at iteration " + iteration + " from " + checkpoint);
+        }
+        if (bestScores == null) {
+            bestScores = playValidation(bestWeights, VALIDATION_BATCHES);
+            saveCheckpoint();
+        }
+        System.out.printf("Best weights %s, mean score %.1f%n", Arrays.toString(bestWeights), mean(bestScores));
+
+        while (iteration < iterations) {
+            step();
+            iteration++;
+            saveCheckpoint();
+        }
+        System.out.println("Final weights: " + joinDoubles(bestWeights));
+        System.out.println("Use them with -Dai.weights=" + checkpoint);
+    }
+
+    /**
+     * Performs one SPSA iteration followed by a race against the best weights.
+     */
+    private void step() {
+        Random rng = new Random(BASE_SEED + 31L * (iteration + 1));
+        double stepSize = STEP_SIZE / Math.pow(iteration + 1 + STABILITY, STEP_DECAY);
+        double perturbation = PERTURBATION / Math.pow(iteration + 1, PERTURBATION_DECAY);
+
+        double[] delta = new double[Board.FEATURE_COUNT];
+        double[] plus = new double[Board.FEATURE_COUNT];
+        double[] minus = new double[Board.FEATURE_COUNT];
+        for (int i = 0; i < delta.length; i++) {
+            delta[i] = rng.nextBoolean() ? 1.0 : -1.0;
+            plus[i] = theta[i] + perturbation * delta[i];
+            minus[i] = theta[i] - perturbation * delta[i];
+        }
+
+        // Both sides play the same spawn seeds so the difference is mostly due to the weights
+        long[] seeds = new long[gamesPerBatch];
+        for (int i = 0; i < seeds.length; i++) seeds[i] = rng.nextLong();
+        double plusScore = mean(playGames(plus, seeds));
+        double minusScore = mean(playGames(minus, seeds));
+
+        // Relative score difference keeps the step size independent of the score scale
+        double scale = Math.max(1.0, (plusScore + minusScore) / 2);
+        for (int i = 0; i < theta.length; i++) {
+            double gradient = (plusScore - minusScore) / scale / (2 * perturbation * delta[i]);
+            theta[i] += stepSize * gradient;
+        }
+
+        int[] scores = raceAgainstBest(theta);
+        if (scores != null) {
+            bestWeights = theta.clone();
+            bestScores = scores;
+        }
+        System.out.printf("Iteration %d: +%.1f / -%.1f, theta %s, %s%n", iteration + 1, plusScore, minusScore,
+                Arrays.toString(theta), scores != null ? "new best " + String.format("%.1f", mean(scores)) : "kept best");
+    }
+
+    /**
+     * Plays the validation seeds batch by batch with the candidate weights,
+     * comparing each game with the best weights' game on the same seed.
+     * @param candidate Weights to test
+     * @return The candidate's scores if it beat the best weights significantly, or null if it did not
+     */
+    private int[] raceAgainstBest(double[] candidate) {
+        int[] scores = new int[bestScores.length];
+        double diffSum = 0;
+        double diffSquares = 0;
+        double meanDiff = 0;
+        double stdErr = 0;
+
+        for (int batch = 0; batch < VALIDATION_BATCHES; batch++) {
+            int from = batch * gamesPerBatch;
+            int[] batchScores = playGames(candidate, validationSeeds(from, gamesPerBatch));
+            System.arraycopy(batchScores, 0, scores, from, gamesPerBatch);
+
+            for (int i = 0; i < gamesPerBatch; i++) {
+                double diff = batchScores[i] - bestScores[from + i];
+                diffSum += diff;
+                diffSquares += diff * diff;
+            }
+
+            int n = from + gamesPerBatch;
+            meanDiff = diffSum / n;
+            double variance = Math.max(0, diffSquares / n - meanDiff * meanDiff);
+            stdErr = Math.sqrt(variance / n);
+            if (meanDiff + EARLY_STOP_SIGMAS * stdErr < 0) return null; // clearly worse, stop early
+        }
+        return meanDiff > ACCEPT_SIGMAS * stdErr ? scores : null;
+    }
+
+    /**
+     * Plays all validation games with the given weights.
+     */
+    private int[] playValidation(double[] weights, int batches) {
+        return playGames(weights, validationSeeds(0, batches * gamesPerBatch));
+    }
+
+    /**
+     * Returns a range of the fixed validation seeds.
+     */
+    private static long[] validationSeeds(int from, int count) {
+        long[] seeds = new long[count];
+        for (int i = 0; i < count; i++) seeds[i] = BASE_SEED + from + i;
+        return seeds;
+    }
+
+    /**
+     * Plays one game per seed in parallel.
+     * @param weights Evaluation weights
+     * @param seeds Tile-spawn seeds
+     * @return Final score of each game, in seed order
+     */
+    private int[] playGames(double[] weights, long[] seeds) {
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (long seed : seeds) {
+            futures.add(pool.submit(() -> playGame(weights, seed)));
+        }
+
+        int[] scores = new int[seeds.length];
+        try {
+            for (int i = 0; i < scores.length; i++) scores[i] = futures.get(i).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while playing games", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Self-play game failed", e.getCause());
+        }
+        return scores;
+    }
+
+    /**
+     * Plays a single Alpha-Beta game to the end.
+     * @return Final score
+     */
+    private int playGame(double[] weights, long seed) {
+        Board board = new Board(seed);
+        board.setWeights(weights);
+        board.setSearchDepth(depth);
+        board.startNewGame();
+        while (!board.isGameOver()) {
+            if (board.ABprune() == null) break;
+        }
+        return board.getScore();
+    }
+
+    /**
+     * Returns the mean of the scores.
+     */
+    private static double mean(int[] scores) {
+        double sum = 0;
+        for (int s : scores) sum += s;
+        return scores.length == 0 ? 0 : sum / scores.length;
+    }
+
+    /**
+     * Loads the tuning state from the checkpoint file.
+     */
+    private void loadCheckpoint() throws IOException {
+        Properties props = new Properties();
+        try (Reader reader = Files.newBufferedReader(checkpoint, StandardCharsets.UTF_8)) {
+            props.load(reader);
+        }
+        int savedDepth = Integer.parseInt(props.getProperty("depth"));
+        int savedGames = Integer.parseInt(props.getProperty("gamesPerBatch"));
+        if (savedDepth != depth || savedGames != gamesPerBatch) {
+            throw new IOException("Checkpoint " + checkpoint + " was made with depth " + savedDepth
+                    + " and " + savedGames + " games per batch");
+        }
+        iteration = Integer.parseInt(props.getProperty("iteration"));
+        theta = parseDoubles(props.getProperty("theta"));
+        bestWeights = parseDoubles(props.getProperty("bestWeights"));
+        String scores = props.getProperty("bestScores");
+        if (scores != null && !scores.isEmpty()) {
+            bestScores = Arrays.stream(scores.split(",")).mapToInt(Integer::parseInt).toArray();
+        }
+    }
+
+    /**
+     * Writes the tuning state to a temporary file and moves it over the
+     * checkpoint, so an interruption never leaves a half-written checkpoint.
+     */
+    private void saveCheckpoint() throws IOException {
+        Properties props = new Properties();
+        props.setProperty("depth", String.valueOf(depth));
+        props.setProperty("gamesPerBatch", String.valueOf(gamesPerBatch));
+        props.setProperty("iteration", String.valueOf(iteration));
+        props.setProperty("theta", joinDoubles(theta));
+        props.setProperty("bestWeights", joinDoubles(bestWeights));
+        if (bestScores != null) {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < bestScores.length; i++) {
+                if (i > 0) sb.append(',');
+                sb.append(bestScores[i]);
+            }
+            props.setProperty("bestScores", sb.toString());
+        }
+
+        Path parent = checkpoint.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        Path tmp = checkpoint.resolveSibling(checkpoint.getFileName() + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            props.store(writer, "WeightTuner checkpoint");
+        }
+        Files.move(tmp, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads evaluation weights for the GUI and tools: either the best weights
+     * saved in a tuner checkpoint file, or a comma-separated list of values.
+     * @param source Checkpoint file path or comma-separated weights
+     * @return Weights (Board.FEATURE_COUNT values)
+     */
+    public static double[] loadWeights(String source) throws IOException {
+        Path path = Paths.get(source);
+        double[] weights;
+        if (Files.isRegularFile(path)) {
+            Properties props = new Properties();
+            try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                props.load(reader);
+            }
+            String best = props.getProperty("bestWeights");
+            if (best == null) throw new IOException(source + " has no bestWeights entry");
+            weights = parseDoubles(best);
+        } else {
+            weights = parseDoubles(source);
+        }
+        if (weights.length != Board.FEATURE_COUNT)
+            throw new IOException("Expected " + Board.FEATURE_COUNT + " weights in " + source + ", got " + weights.length);
+        return weights;
+    }
+
+    private static double[] parseDoubles(String text) {
+        return Arrays.stream(text.split(",")).mapToDouble(Double::parseDouble).toArray();
+    }
+
+    private static String joinDoubles(double[] values) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) sb.append(',');
+            sb.append(values[i]);
+        }
+        return sb.toString();
+    }
+
+    /** Returns the best weights found so far */
+    public double[] getBestWeights() { return bestWeights.clone(); }
+
+    /**
+     * Stops the worker threads.
+     */
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Runs the tuner from the command line.
+     * @param args [iterations] [depth] [gamesPerBatch] [checkpointFile]
+     */
+    public static void main(String[] args) throws IOException {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_ITERATIONS;
+        int depth = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_DEPTH;
+        int games = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_GAMES_PER_BATCH;
+        Path checkpoint = Paths.get(args.length > 3 ? args[3] : DEFAULT_CHECKPOINT);
+
+        try (WeightTuner tuner = new WeightTuner(depth, games, checkpoint)) {
+            tuner.run(iterations);
+        }
+    }
+}
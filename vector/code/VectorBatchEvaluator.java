@@ -0,0 +1,82 @@
+package code;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * VectorBatchEvaluator is the SIMD kernel of BatchEvaluator. Each lane holds
+ * one packed board, so a 256-bit vector (AVX2) scores four boards and a
+ * 512-bit vector (AVX-512) eight boards per pass over the cells.
+ *
+ * Features are computed exactly in 64-bit integer lanes with the same
+ * formulas as BatchEvaluator.evaluateScalar, then each lane is combined
+ * with BatchEvaluator.combine, so scores match the scalar path bit for bit.
+ *
+ * Needs {@code --add-modules jdk.incubator.vector} to compile and run, so it
+ * lives outside the main code directory and is compiled in an optional
+ * second step (see README). BatchEvaluator loads it by name and falls back
+ * to scalar code when it was not compiled or the module is missing.
+ */
+class VectorBatchEvaluator implements BatchEvaluator.Kernel {
+
+    /** Widest vector shape the CPU supports */
+    private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+
+    @Override
+    public void evaluate(long[] boards, int from, int to, double[] weights, double[] out) {
+        int lanes = SPECIES.length();
+        long[] sum = new long[lanes], empty = new long[lanes], smooth = new long[lanes];
+        long[] mono = new long[lanes], corner = new long[lanes];
+        LongVector[] v = new LongVector[16];
+        LongVector zero = LongVector.zero(SPECIES);
+        LongVector one = LongVector.broadcast(SPECIES, 1);
+
+        int b = from;
+        for (; b + lanes <= to; b += lanes) {
+            LongVector packed = LongVector.fromArray(SPECIES, boards, b);
+
+            LongVector sumV = zero, emptyV = zero, maxV = zero;
+            for (int i = 0; i < 16; i++) {
+                LongVector exp = packed.lanewise(VectorOperators.LSHR, (15 - i) * 4).and(0xFL);
+                VectorMask<Long> isEmpty = exp.eq(0);
+                v[i] = one.lanewise(VectorOperators.LSHL, exp).blend(zero, isEmpty);
+                sumV = sumV.add(v[i]);
+                emptyV = emptyV.add(zero.blend(one, isEmpty));
+                maxV = maxV.max(v[i]);
+            }
+
+            LongVector smoothV = zero, monoV = zero;
+            for (int line = 0; line < 4; line++) {
+                LongVector rowInc = zero, rowDec = zero, colInc = zero, colDec = zero;
+                for (int k = 0; k < 3; k++) {
+                    LongVector rowDiff = v[line * 4 + k + 1].sub(v[line * 4 + k]);
+                    LongVector colDiff = v[(k + 1) * 4 + line].sub(v[k * 4 + line]);
+                    smoothV = smoothV.sub(rowDiff.abs().add(colDiff.abs()));
+                    rowInc = rowInc.add(rowDiff.max(0));
+                    rowDec = rowDec.add(rowDiff.neg().max(0));
+                    colInc = colInc.add(colDiff.max(0));
+                    colDec = colDec.add(colDiff.neg().max(0));
+                }
+                monoV = monoV.sub(rowInc.min(rowDec).add(colInc.min(colDec)));
+            }
+
+            VectorMask<Long> maxInCorner = v[0].eq(maxV).or(v[3].eq(maxV)).or(v[12].eq(maxV)).or(v[15].eq(maxV));
+            LongVector cornerV = zero.blend(maxV, maxInCorner);
+
+            sumV.intoArray(sum, 0);
+            emptyV.intoArray(empty, 0);
+            smoothV.intoArray(smooth, 0);
+            monoV.intoArray(mono, 0);
+            cornerV.intoArray(corner, 0);
+            for (int lane = 0; lane < lanes; lane++) {
+                out[b + lane] = BatchEvaluator.combine(weights, sum[lane], empty[lane],
+                        smooth[lane], mono[lane], corner[lane]);
+            }
+        }
+
+        // Boards left over after the last full vector
+        BatchEvaluator.evaluateScalar(boards, b, to, weights, out);
+    }
+}